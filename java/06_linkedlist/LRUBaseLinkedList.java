@@ -1,6 +1,9 @@
 package linked.singlelist;
 
 
+import linkedlist.CacheStats;
+import linkedlist.StatsCounter;
+
 import java.util.Scanner;
 
 /**
@@ -31,6 +34,11 @@ public class LRUBaseLinkedList<T> {
      */
     private Integer capacity;
 
+    /**
+     * 命中率统计，默认关闭
+     */
+    private StatsCounter stats = StatsCounter.disabled();
+
     public LRUBaseLinkedList() {
         this.headNode = new SNode<>();
         this.capacity = DEFAULT_CAPACITY;
@@ -48,17 +56,43 @@ public class LRUBaseLinkedList<T> {
 
         // 链表中存在，删除原数据，再插入到链表的头部
         if (preNode != null) {
+            stats.recordHits(1);
             deleteElemOptim(preNode);
             intsertElemAtBegin(data);
         } else {
+            stats.recordMisses(1);
             if (length >= this.capacity) {
                 //删除尾结点
                 deleteElemAtEnd();
+                stats.recordEviction();
             }
             intsertElemAtBegin(data);
         }
     }
 
+    /**
+     * 开启命中率统计，已开启时清零重新统计
+     */
+    public void enableStats() {
+        stats = new StatsCounter();
+    }
+
+    /**
+     * 关闭命中率统计
+     */
+    public void disableStats() {
+        stats = StatsCounter.disabled();
+    }
+
+    /**
+     * 获取统计快照，未开启时各项均为0
+     *
+     * @return
+     */
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
     /**
      * 删除preNode结点下一个元素
      *
@@ -22,6 +22,11 @@ public class LRUBasedArray<T> {
 
     private Map<T, Integer> holder;
 
+    /**
+     * 命中率统计，默认关闭
+     */
+    private StatsCounter stats = StatsCounter.disabled();
+
     public LRUBasedArray() {
         this(DEFAULT_CAPACITY);
     }
@@ -43,12 +48,14 @@ public class LRUBasedArray<T> {
         }
         Integer index = holder.get(object);
         if (index == null) {
+            stats.recordMisses(1);
             if (isFull()) {
                 removeAndCache(object);
             } else {
                 cache(object, count);
             }
         } else {
+            stats.recordHits(1);
             update(index);
         }
     }
@@ -83,6 +90,7 @@ public class LRUBasedArray<T> {
     public void removeAndCache(T object) {
         T key = value[--count];
         holder.remove(key);
+        stats.recordEviction();
         cache(object, count);
     }
 
@@ -97,6 +105,29 @@ public class LRUBasedArray<T> {
         }
     }
 
+    /**
+     * 开启命中率统计，已开启时清零重新统计
+     */
+    public void enableStats() {
+        stats = new StatsCounter();
+    }
+
+    /**
+     * 关闭命中率统计
+     */
+    public void disableStats() {
+        stats = StatsCounter.disabled();
+    }
+
+    /**
+     * 获取统计快照，未开启时各项均为0
+     *
+     * @return
+     */
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
     public boolean isContain(T object) {
         return holder.containsKey(object);
     }
@@ -0,0 +1,204 @@
+package linkedlist;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基于数组实现的LRU缓存，O(1)版本
+ *
+ * 与LRUBasedArray接口相同，数据仍然存放在数组槽位中，但不再靠搬移元素维护访问顺序：
+ * 用prev/next两个int数组在槽位之间串起一条双向链表，head是最近访问的槽位，tail是最久未访问的槽位。
+ * 1. 空间复杂度为O(n)
+ * 2. 命中和淘汰的时间复杂度都为O(1)，命中时不分配任何对象
+ * 3. 不支持null的缓存
+ */
+public class LRUBasedLinkedArray<T> {
+
+    private static final int DEFAULT_CAPACITY = (1 << 3);
+
+    /**
+     * 空指针
+     */
+    private static final int NIL = -1;
+
+    private int capacity;
+
+    private int count;
+
+    private T[] value;
+
+    /**
+     * prev[i]、next[i]为槽位i在访问顺序链表中的前驱和后继槽位
+     */
+    private int[] prev;
+
+    private int[] next;
+
+    private int head = NIL;
+
+    private int tail = NIL;
+
+    private Map<T, Integer> holder;
+
+    /**
+     * 命中率统计，默认关闭
+     */
+    private StatsCounter stats = StatsCounter.disabled();
+
+    public LRUBasedLinkedArray() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    @SuppressWarnings("unchecked")
+    public LRUBasedLinkedArray(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity <= 0: " + capacity);
+        }
+        this.capacity = capacity;
+        value = (T[]) new Object[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        count = 0;
+        holder = new HashMap<T, Integer>(capacity);
+    }
+
+    /**
+     * 模拟访问某个值
+     * @param object
+     */
+    public void offer(T object) {
+        if (object == null) {
+            throw new IllegalArgumentException("该缓存容器不支持null!");
+        }
+        Integer index = holder.get(object);
+        if (index == null) {
+            stats.recordMisses(1);
+            int slot;
+            if (isFull()) {
+                // 复用最久未访问的槽位
+                slot = tail;
+                unlink(slot);
+                holder.remove(value[slot]);
+                stats.recordEviction();
+            } else {
+                slot = count++;
+            }
+            value[slot] = object;
+            holder.put(object, slot);
+            linkFirst(slot);
+        } else {
+            stats.recordHits(1);
+            if (index != head) {
+                unlink(index);
+                linkFirst(index);
+            }
+        }
+    }
+
+    /**
+     * 把槽位插到链表头部
+     * @param slot
+     */
+    private void linkFirst(int slot) {
+        prev[slot] = NIL;
+        next[slot] = head;
+        if (head != NIL) {
+            prev[head] = slot;
+        } else {
+            tail = slot;
+        }
+        head = slot;
+    }
+
+    /**
+     * 把槽位从链表中摘下
+     * @param slot
+     */
+    private void unlink(int slot) {
+        int p = prev[slot];
+        int n = next[slot];
+        if (p != NIL) {
+            next[p] = n;
+        } else {
+            head = n;
+        }
+        if (n != NIL) {
+            prev[n] = p;
+        } else {
+            tail = p;
+        }
+    }
+
+    /**
+     * 开启命中率统计，已开启时清零重新统计
+     */
+    public void enableStats() {
+        stats = new StatsCounter();
+    }
+
+    /**
+     * 关闭命中率统计
+     */
+    public void disableStats() {
+        stats = StatsCounter.disabled();
+    }
+
+    /**
+     * 获取统计快照，未开启时各项均为0
+     *
+     * @return
+     */
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
+    public boolean isContain(T object) {
+        return holder.containsKey(object);
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public boolean isFull() {
+        return count == capacity;
+    }
+
+    /**
+     * 按从最近到最久的访问顺序输出
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = head; i != NIL; i = next[i]) {
+            sb.append(value[i]);
+            sb.append(" ");
+        }
+        return sb.toString();
+    }
+
+    static class TestLRUBasedLinkedArray {
+
+        public static void main(String[] args) {
+            testSpecifiedConstructor(4);
+        }
+
+        public static void testSpecifiedConstructor(int capacity) {
+            System.out.println("======有参测试========");
+            LRUBasedLinkedArray<Integer> lru = new LRUBasedLinkedArray<Integer>(capacity);
+            lru.offer(1);
+            lru.offer(2);
+            lru.offer(3);
+            lru.offer(4);
+            System.out.println(lru);
+            lru.offer(2);
+            System.out.println(lru);
+            lru.offer(7);
+            System.out.println(lru);
+            lru.offer(1);
+            System.out.println(lru);
+            lru.offer(4);
+            System.out.println(lru);
+        }
+    }
+}
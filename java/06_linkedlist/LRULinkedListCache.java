@@ -0,0 +1,252 @@
+package linked.singlelist;
+
+import linkedlist.CacheStats;
+import linkedlist.StatsCounter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 基于单链表 + 散列表的LRU缓存（java）
+ *
+ * LRUBaseLinkedList每次访问都要遍历链表查找元素及其前驱结点，是O(n)的。
+ * 这里仍然使用带头结点的单链表维护访问顺序（越靠近头部越是最近访问），
+ * 另外用散列表记录每个key所在结点的【前驱结点】，单链表删除结点需要的正是前驱，
+ * 于是查找、移到头部、淘汰尾结点都是O(1)。
+ *
+ * 淘汰尾结点时会回调evictionListener，方便调用方释放被淘汰的资源。非线程安全。
+ */
+public class LRULinkedListCache<K, V> {
+
+    /**
+     * 默认链表容量
+     */
+    private final static int DEFAULT_CAPACITY = 10;
+
+    /**
+     * 头结点（哨兵）
+     */
+    private final Node<K, V> headNode = new Node<>(null, null);
+
+    /**
+     * 尾结点，链表为空时指向头结点
+     */
+    private Node<K, V> tailNode = headNode;
+
+    /**
+     * key -> 该key所在结点的前驱结点
+     */
+    private final Map<K, Node<K, V>> prevIndex;
+
+    /**
+     * 链表容量
+     */
+    private final int capacity;
+
+    /**
+     * 淘汰回调，可以为null
+     */
+    private final BiConsumer<? super K, ? super V> evictionListener;
+
+    /**
+     * 命中率统计，默认关闭
+     */
+    private StatsCounter stats = StatsCounter.disabled();
+
+    public LRULinkedListCache() {
+        this(DEFAULT_CAPACITY, null);
+    }
+
+    public LRULinkedListCache(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * @param capacity         最多缓存的元素个数
+     * @param evictionListener 因容量不足被淘汰时回调，参数为被淘汰的key和value
+     */
+    public LRULinkedListCache(int capacity, BiConsumer<? super K, ? super V> evictionListener) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity <= 0: " + capacity);
+        }
+        this.capacity = capacity;
+        this.evictionListener = evictionListener;
+        this.prevIndex = new HashMap<>(capacity * 4 / 3 + 1);
+    }
+
+    /**
+     * 获取，命中时移到链表头部
+     *
+     * @param key
+     * @return 不存在时返回null
+     */
+    public V get(K key) {
+        Node<K, V> prev = prevIndex.get(key);
+        if (prev == null) {
+            stats.recordMisses(1);
+            return null;
+        }
+        stats.recordHits(1);
+        Node<K, V> node = prev.next;
+        moveToHead(prev, node);
+        return node.value;
+    }
+
+    /**
+     * 新增或更新，并移到链表头部；超出容量时淘汰尾结点
+     *
+     * @param key
+     * @param value
+     */
+    public void put(K key, V value) {
+        Node<K, V> prev = prevIndex.get(key);
+        if (prev != null) {
+            Node<K, V> node = prev.next;
+            node.value = value;
+            moveToHead(prev, node);
+            return;
+        }
+        if (prevIndex.size() >= capacity) {
+            evictTail();
+        }
+        insertAtBegin(new Node<>(key, value));
+    }
+
+    /**
+     * 删除，不触发淘汰回调
+     *
+     * @param key
+     * @return 被删除的value，不存在时返回null
+     */
+    public V remove(K key) {
+        Node<K, V> prev = prevIndex.remove(key);
+        if (prev == null) {
+            return null;
+        }
+        Node<K, V> node = prev.next;
+        unlink(prev, node);
+        return node.value;
+    }
+
+    public int size() {
+        return prevIndex.size();
+    }
+
+    /**
+     * 开启命中率统计，已开启时清零重新统计
+     */
+    public void enableStats() {
+        stats = new StatsCounter();
+    }
+
+    /**
+     * 关闭命中率统计
+     */
+    public void disableStats() {
+        stats = StatsCounter.disabled();
+    }
+
+    /**
+     * 获取统计快照，未开启时各项均为0
+     *
+     * @return
+     */
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * 把prev之后的结点node移到链表头部
+     */
+    private void moveToHead(Node<K, V> prev, Node<K, V> node) {
+        if (prev == headNode) {
+            return;
+        }
+        unlink(prev, node);
+        insertAtBegin(node);
+    }
+
+    /**
+     * 链表头部插入结点
+     */
+    private void insertAtBegin(Node<K, V> node) {
+        Node<K, V> first = headNode.next;
+        node.next = first;
+        headNode.next = node;
+        if (first != null) {
+            prevIndex.put(first.key, node);
+        } else {
+            tailNode = node;
+        }
+        prevIndex.put(node.key, headNode);
+    }
+
+    /**
+     * 删除prev之后的结点node，并修正node后继结点的前驱索引
+     */
+    private void unlink(Node<K, V> prev, Node<K, V> node) {
+        Node<K, V> next = node.next;
+        prev.next = next;
+        node.next = null;
+        if (next != null) {
+            prevIndex.put(next.key, prev);
+        } else {
+            tailNode = prev;
+        }
+    }
+
+    /**
+     * 淘汰尾结点
+     */
+    private void evictTail() {
+        Node<K, V> tail = tailNode;
+        if (tail == headNode) {
+            return;
+        }
+        Node<K, V> prev = prevIndex.remove(tail.key);
+        unlink(prev, tail);
+        stats.recordEviction();
+        if (evictionListener != null) {
+            evictionListener.accept(tail.key, tail.value);
+        }
+    }
+
+    private void printAll() {
+        Node<K, V> node = headNode.next;
+        while (node != null) {
+            System.out.print(node.key + "=" + node.value + ",");
+            node = node.next;
+        }
+        System.out.println();
+    }
+
+    private static class Node<K, V> {
+
+        private final K key;
+
+        private V value;
+
+        private Node<K, V> next;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    public static void main(String[] args) {
+        LRULinkedListCache<Integer, String> cache = new LRULinkedListCache<>(3,
+                (key, value) -> System.out.println("evict " + key + "=" + value));
+        cache.put(1, "a");
+        cache.put(2, "b");
+        cache.put(3, "c");
+        cache.printAll();
+        cache.get(1);
+        cache.printAll();
+        cache.put(4, "d");
+        cache.printAll();
+        cache.remove(3);
+        cache.printAll();
+    }
+}
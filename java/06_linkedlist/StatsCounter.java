@@ -0,0 +1,99 @@
+package linkedlist;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存统计计数器，LRUBasedArray、LRUBaseLinkedList、LRULinkedListCache等本章的缓存共用
+ *
+ * 计数使用LongAdder：多个线程同时计数时各自累加到不同的槽位，不会争抢同一个变量，
+ * 多个线程共用一个计数器时也不会互相阻塞。snapshot()把当前计数汇总成不可变的CacheStats。
+ *
+ * 不需要统计时使用disabled()返回的共享实例，所有方法都是空操作，缓存可以无条件调用，不必判断null。
+ */
+public class StatsCounter {
+
+    private static final StatsCounter DISABLED = new StatsCounter() {
+        @Override
+        public void recordHits(int count) {
+        }
+
+        @Override
+        public void recordMisses(int count) {
+        }
+
+        @Override
+        public void recordEviction() {
+        }
+
+        @Override
+        public void recordLoadSuccess(long loadNanos) {
+        }
+
+        @Override
+        public void recordLoadFailure(long loadNanos) {
+        }
+
+        @Override
+        public CacheStats snapshot() {
+            return CacheStats.EMPTY;
+        }
+    };
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private final LongAdder loadSuccessCount = new LongAdder();
+
+    private final LongAdder loadFailureCount = new LongAdder();
+
+    private final LongAdder totalLoadTime = new LongAdder();
+
+    /**
+     * 不做任何统计的共享实例
+     */
+    public static StatsCounter disabled() {
+        return DISABLED;
+    }
+
+    public void recordHits(int count) {
+        hitCount.add(count);
+    }
+
+    public void recordMisses(int count) {
+        missCount.add(count);
+    }
+
+    /**
+     * 因容量不足或过期被淘汰，主动删除不算
+     */
+    public void recordEviction() {
+        evictionCount.increment();
+    }
+
+    /**
+     * @param loadNanos 加载耗时（纳秒）
+     */
+    public void recordLoadSuccess(long loadNanos) {
+        loadSuccessCount.increment();
+        totalLoadTime.add(loadNanos);
+    }
+
+    /**
+     * @param loadNanos 加载耗时（纳秒），包括抛出异常之前花费的时间
+     */
+    public void recordLoadFailure(long loadNanos) {
+        loadFailureCount.increment();
+        totalLoadTime.add(loadNanos);
+    }
+
+    /**
+     * 汇总当前计数，并发计数时各项之间不保证是同一时刻的值
+     */
+    public CacheStats snapshot() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(),
+                loadSuccessCount.sum(), loadFailureCount.sum(), totalLoadTime.sum());
+    }
+}
@@ -0,0 +1,125 @@
+package queue;
+
+/**
+ * 可以自动扩容的循环队列（类似java.util.ArrayDeque）
+ *
+ * DynamicArrayQueue在tail到达数组末尾时要把所有元素搬回下标0，队列满了也不能扩容。
+ * 这里数组首尾相连，入队、出队都不搬移数据；数组容量是2的幂，下标用 & mask 计算。
+ * 数组满了才扩容为两倍，扩容时把绕回开头的两段按顺序拷贝到新数组，均摊下来入队仍然是O(1)。
+ * 开启shrink后，元素个数降到容量的1/4以下时缩容为一半（不小于初始容量），避免一次峰值之后一直占着大数组。
+ * 非线程安全。
+ */
+public class GrowableCircularQueue<E> {
+  private static final int DEFAULT_CAPACITY = 16;
+  // 最大容量，再扩容就会超出数组长度上限
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private Object[] items;
+  private int mask;
+  // head表示队头下标，tail表示下一个入队元素的下标
+  private int head = 0;
+  private int tail = 0;
+  private int size = 0;
+  private final int minCapacity;
+  private final boolean shrink;
+
+  public GrowableCircularQueue() {
+    this(DEFAULT_CAPACITY, false);
+  }
+
+  // capacity向上取整为2的幂，shrink表示元素变少时是否缩容
+  public GrowableCircularQueue(int capacity, boolean shrink) {
+    if (capacity < 1 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException("capacity: " + capacity);
+    }
+    int n = 2;
+    while (n < capacity) n <<= 1;
+    items = new Object[n];
+    mask = n - 1;
+    minCapacity = n;
+    this.shrink = shrink;
+  }
+
+  // 入队，数组满了先扩容
+  public boolean enqueue(E item) {
+    if (item == null) throw new NullPointerException();
+    if (size == items.length) resize(items.length << 1);
+    items[tail] = item;
+    tail = (tail + 1) & mask;
+    ++size;
+    return true;
+  }
+
+  // 出队，队列为空返回null
+  @SuppressWarnings("unchecked")
+  public E dequeue() {
+    if (size == 0) return null;
+    E ret = (E) items[head];
+    items[head] = null;
+    head = (head + 1) & mask;
+    --size;
+    if (shrink && items.length > minCapacity && size < (items.length >>> 2)) {
+      resize(items.length >>> 1);
+    }
+    return ret;
+  }
+
+  // 查看队头元素，不出队
+  @SuppressWarnings("unchecked")
+  public E peek() {
+    return size == 0 ? null : (E) items[head];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int capacity() {
+    return items.length;
+  }
+
+  // 把[head, tail)按顺序搬到新数组的开头，最多两次arraycopy
+  private void resize(int newCapacity) {
+    if (newCapacity <= 0 || newCapacity > MAX_CAPACITY) {
+      throw new IllegalStateException("队列已达到最大容量: " + items.length);
+    }
+    Object[] newItems = new Object[newCapacity];
+    if (size > 0) {
+      int first = Math.min(size, items.length - head);
+      System.arraycopy(items, head, newItems, 0, first);
+      System.arraycopy(items, 0, newItems, first, size - first);
+    }
+    items = newItems;
+    mask = newCapacity - 1;
+    head = 0;
+    tail = size & mask;
+  }
+
+  public void printAll() {
+    for (int i = 0; i < size; ++i) {
+      System.out.print(items[(head + i) & mask] + " ");
+    }
+    System.out.println();
+  }
+
+  public static void main(String[] args) {
+    GrowableCircularQueue<String> queue = new GrowableCircularQueue<>(4, true);
+    for (int i = 0; i < 6; ++i) {
+      queue.enqueue("a" + i);
+    }
+    queue.dequeue();
+    queue.dequeue();
+    queue.enqueue("b0");
+    queue.printAll();
+    System.out.println("capacity = " + queue.capacity());
+    while (queue.size() > 1) {
+      queue.dequeue();
+    }
+    queue.printAll();
+    System.out.println("capacity = " + queue.capacity());
+  }
+}
@@ -0,0 +1,124 @@
+package queue;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 多生产者、多消费者的无锁循环队列（Dmitry Vyukov的有界MPMC队列）
+ *
+ * 和CircularQueue一样用数组首尾相连，但head、tail是只增不减的long序号，下标 = 序号 & mask，
+ * 所以容量必须是2的幂，也不再需要浪费一个数组空间区分空和满。
+ * 每个槽位额外有一个序号sequences[i]：
+ * 1. sequences[i] == pos，表示槽位空闲，轮到序号为pos的生产者写入；
+ * 2. sequences[i] == pos + 1，表示序号为pos的数据已经写好，轮到消费者读取。
+ * 生产者/消费者先用CAS抢到tail/head上的一个序号，再读写对应的槽位，最后更新槽位序号通知对方，
+ * 不同线程抢到不同的序号后可以同时读写不同的槽位。
+ */
+public class MpmcCircularQueue<E> {
+  private final Object[] items;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  // 消费者和生产者各自竞争的序号，填充到不同的缓存行，避免伪共享
+  private final PaddedAtomicLong head = new PaddedAtomicLong();
+  private final PaddedAtomicLong tail = new PaddedAtomicLong();
+
+  // capacity向上取整为2的幂，至少为2（只有一个槽位时“已写入”和“下一圈空闲”的序号相同）
+  public MpmcCircularQueue(int capacity) {
+    if (capacity < 1 || capacity > (1 << 30)) {
+      throw new IllegalArgumentException("capacity: " + capacity);
+    }
+    int n = 2;
+    while (n < capacity) n <<= 1;
+    items = new Object[n];
+    sequences = new AtomicLongArray(n);
+    for (int i = 0; i < n; ++i) {
+      sequences.set(i, i);
+    }
+    mask = n - 1;
+  }
+
+  // 入队，队列满了返回false
+  public boolean enqueue(E item) {
+    if (item == null) throw new NullPointerException();
+    long pos = tail.get();
+    int index;
+    while (true) {
+      index = (int) pos & mask;
+      long dif = sequences.get(index) - pos;
+      if (dif == 0) {
+        // 槽位空闲，抢这个序号
+        if (tail.compareAndSet(pos, pos + 1)) break;
+        pos = tail.get();
+      } else if (dif < 0) {
+        // 槽位上还是一圈之前的数据，队列满了
+        return false;
+      } else {
+        // 被别的生产者抢先了
+        pos = tail.get();
+      }
+    }
+    items[index] = item;
+    // 先写数据再发布序号，消费者读到新序号时一定能看到数据
+    sequences.lazySet(index, pos + 1);
+    return true;
+  }
+
+  // 出队，队列为空返回null
+  @SuppressWarnings("unchecked")
+  public E dequeue() {
+    long pos = head.get();
+    int index;
+    while (true) {
+      index = (int) pos & mask;
+      long dif = sequences.get(index) - (pos + 1);
+      if (dif == 0) {
+        if (head.compareAndSet(pos, pos + 1)) break;
+        pos = head.get();
+      } else if (dif < 0) {
+        // 数据还没写好，队列为空
+        return null;
+      } else {
+        pos = head.get();
+      }
+    }
+    E ret = (E) items[index];
+    items[index] = null;
+    // 槽位留给下一圈序号为pos + n的生产者
+    sequences.lazySet(index, pos + mask + 1);
+    return ret;
+  }
+
+  // 元素个数，并发读写时只是近似值
+  public int size() {
+    long size = tail.get() - head.get();
+    return (int) Math.max(0, Math.min(size, mask + 1));
+  }
+
+  public int capacity() {
+    return mask + 1;
+  }
+
+  // value前后各补56字节，不会和相邻分配的对象落在同一个缓存行。
+  // 父类的字段排在子类前面，所以用三层继承把填充固定在value的两侧
+  static class LeftPad {
+    long p01, p02, p03, p04, p05, p06, p07;
+  }
+
+  static class PaddedValue extends LeftPad {
+    static final AtomicLongFieldUpdater<PaddedValue> VALUE =
+        AtomicLongFieldUpdater.newUpdater(PaddedValue.class, "value");
+    volatile long value;
+  }
+
+  static class PaddedAtomicLong extends PaddedValue {
+    long p11, p12, p13, p14, p15, p16, p17;
+
+    long get() {
+      return value;
+    }
+
+    boolean compareAndSet(long expect, long update) {
+      return VALUE.compareAndSet(this, expect, update);
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package queue;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * MpmcCircularQueue与ArrayBlockingQueue的吞吐量对比
+ *
+ * producers个生产者一共写入total个元素，consumers个消费者把它们全部取走，队列满/空时自旋重试，
+ * 输出每秒传递的元素个数，并校验取出的元素之和。
+ * 每个消费者事先分好要取的个数，只在本线程里计数，结束时再汇总，避免共享计数器的竞争混进测量结果。
+ * 用法：java queue.MpmcQueueBenchmark [producers] [consumers] [total] [capacity]
+ */
+public class MpmcQueueBenchmark {
+
+  interface Queue {
+    boolean offer(Integer item);
+
+    Integer poll();
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    int producers = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+    int consumers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+    int total = args.length > 2 ? Integer.parseInt(args[2]) : 10000000;
+    int capacity = args.length > 3 ? Integer.parseInt(args[3]) : 1024;
+
+    System.out.printf("producers=%d, consumers=%d, total=%d, capacity=%d%n", producers, consumers, total, capacity);
+    for (int round = 0; round < 3; ++round) {
+      ArrayBlockingQueue<Integer> blocking = new ArrayBlockingQueue<>(capacity);
+      long abq = run(new Queue() {
+        @Override
+        public boolean offer(Integer item) {
+          return blocking.offer(item);
+        }
+
+        @Override
+        public Integer poll() {
+          return blocking.poll();
+        }
+      }, producers, consumers, total);
+
+      MpmcCircularQueue<Integer> ring = new MpmcCircularQueue<>(capacity);
+      long mpmc = run(new Queue() {
+        @Override
+        public boolean offer(Integer item) {
+          return ring.enqueue(item);
+        }
+
+        @Override
+        public Integer poll() {
+          return ring.dequeue();
+        }
+      }, producers, consumers, total);
+
+      System.out.printf("round %d: ArrayBlockingQueue %,d ops/s, MpmcCircularQueue %,d ops/s%n", round, abq, mpmc);
+    }
+  }
+
+  private static long run(Queue queue, int producers, int consumers, int total) throws InterruptedException {
+    // 预先装箱，避免装箱开销混进测量结果
+    Integer[] items = new Integer[1024];
+    for (int i = 0; i < items.length; ++i) {
+      items[i] = i;
+    }
+    long expected = 0;
+    for (int i = 0; i < total; ++i) {
+      expected += i & 1023;
+    }
+
+    long[] sums = new long[consumers];
+    CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[producers + consumers];
+    for (int p = 0; p < producers; ++p) {
+      int from = (int) ((long) total * p / producers);
+      int to = (int) ((long) total * (p + 1) / producers);
+      threads[p] = new Thread(() -> {
+        await(start);
+        for (int i = from; i < to; ++i) {
+          Integer item = items[i & 1023];
+          while (!queue.offer(item)) {
+            Thread.yield();
+          }
+        }
+      });
+    }
+    for (int c = 0; c < consumers; ++c) {
+      int id = c;
+      int quota = (int) ((long) total * (c + 1) / consumers - (long) total * c / consumers);
+      threads[producers + c] = new Thread(() -> {
+        await(start);
+        long localSum = 0;
+        for (int taken = 0; taken < quota; ) {
+          Integer item = queue.poll();
+          if (item == null) {
+            Thread.yield();
+            continue;
+          }
+          localSum += item;
+          ++taken;
+        }
+        sums[id] = localSum;
+      });
+    }
+    for (Thread t : threads) {
+      t.start();
+    }
+    long begin = System.nanoTime();
+    start.countDown();
+    for (Thread t : threads) {
+      t.join();
+    }
+    long nanos = System.nanoTime() - begin;
+    long sum = 0;
+    for (long s : sums) {
+      sum += s;
+    }
+    if (sum != expected) {
+      throw new IllegalStateException("校验失败: " + sum + " != " + expected);
+    }
+    return (long) (total * 1e9 / nanos);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package queue;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Consumer;
+
+/**
+ * 单生产者、单消费者的无锁循环队列
+ *
+ * 只允许一个线程入队、一个线程出队，不需要CAS：
+ * 1. 容量是2的幂，下标 = 序号 & mask，代替CircularQueue里的 % n；
+ * 2. 生产者只写tail、消费者只写head，写完数据后用lazySet发布序号，另一方读到新序号时一定能看到数据；
+ * 3. 生产者缓存一份head（cachedHead），只有按缓存值判断队列满了才去读真正的head，消费者同理缓存tail，
+ *    大多数操作不会读对方正在写的缓存行；
+ * 4. fill/drain一次写入或取走一批元素，整批只发布一次序号。
+ */
+public class SpscCircularQueue<E> {
+  private final Object[] items;
+  private final int mask;
+  // 生产者的tail和它缓存的head放在一起，消费者的head和它缓存的tail放在一起，各占一个缓存行
+  private final Index producer = new Index();
+  private final Index consumer = new Index();
+
+  // capacity向上取整为2的幂
+  public SpscCircularQueue(int capacity) {
+    if (capacity < 1 || capacity > (1 << 30)) {
+      throw new IllegalArgumentException("capacity: " + capacity);
+    }
+    int n = 1;
+    while (n < capacity) n <<= 1;
+    items = new Object[n];
+    mask = n - 1;
+  }
+
+  // 入队，队列满了返回false，只能由生产者线程调用
+  public boolean enqueue(E item) {
+    if (item == null) throw new NullPointerException();
+    long tail = producer.get();
+    if (tail - producer.cached > mask) {
+      producer.cached = consumer.get();
+      if (tail - producer.cached > mask) return false;
+    }
+    items[(int) tail & mask] = item;
+    producer.lazySet(tail + 1);
+    return true;
+  }
+
+  // 出队，队列为空返回null，只能由消费者线程调用
+  @SuppressWarnings("unchecked")
+  public E dequeue() {
+    long head = consumer.get();
+    if (head >= consumer.cached) {
+      consumer.cached = producer.get();
+      if (head >= consumer.cached) return null;
+    }
+    int index = (int) head & mask;
+    E ret = (E) items[index];
+    items[index] = null;
+    consumer.lazySet(head + 1);
+    return ret;
+  }
+
+  // 把src[from, from + count)中尽可能多的元素入队，只发布一次tail，返回实际入队的个数
+  public int fill(E[] src, int from, int count) {
+    long tail = producer.get();
+    long free = mask + 1 - (tail - producer.cached);
+    if (free < count) {
+      producer.cached = consumer.get();
+      free = mask + 1 - (tail - producer.cached);
+    }
+    int n = (int) Math.min(free, count);
+    for (int i = 0; i < n; ++i) {
+      E item = src[from + i];
+      if (item == null) throw new NullPointerException();
+      items[(int) (tail + i) & mask] = item;
+    }
+    if (n > 0) producer.lazySet(tail + n);
+    return n;
+  }
+
+  // 最多取走limit个元素交给c处理，只发布一次head，返回实际取走的个数
+  // c抛出异常时，之前处理完的元素照常出队，抛出异常的元素留在队头
+  @SuppressWarnings("unchecked")
+  public int drain(Consumer<? super E> c, int limit) {
+    long head = consumer.get();
+    long available = consumer.cached - head;
+    if (available < limit) {
+      consumer.cached = producer.get();
+      available = consumer.cached - head;
+    }
+    int n = (int) Math.min(available, limit);
+    int i = 0;
+    try {
+      for (; i < n; ++i) {
+        int index = (int) (head + i) & mask;
+        c.accept((E) items[index]);
+        items[index] = null;
+      }
+    } finally {
+      if (i > 0) consumer.lazySet(head + i);
+    }
+    return n;
+  }
+
+  // 元素个数，并发读写时只是近似值
+  public int size() {
+    long size = producer.get() - consumer.get();
+    return (int) Math.max(0, Math.min(size, mask + 1));
+  }
+
+  public int capacity() {
+    return mask + 1;
+  }
+
+  // 序号和本线程缓存的对方序号，前后各补56字节，不会和相邻分配的对象落在同一个缓存行。
+  // 父类的字段排在子类前面，所以用三层继承把填充固定在value的两侧
+  static class IndexLeftPad {
+    long p01, p02, p03, p04, p05, p06, p07;
+  }
+
+  static class IndexValue extends IndexLeftPad {
+    static final AtomicLongFieldUpdater<IndexValue> VALUE =
+        AtomicLongFieldUpdater.newUpdater(IndexValue.class, "value");
+    volatile long value;
+    long cached;
+  }
+
+  static class Index extends IndexValue {
+    long p11, p12, p13, p14, p15, p16;
+
+    long get() {
+      return value;
+    }
+
+    void lazySet(long newValue) {
+      VALUE.lazySet(this, newValue);
+    }
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    int total = args.length > 0 ? Integer.parseInt(args[0]) : 20000000;
+    int batch = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+    Integer[] values = new Integer[1024];
+    for (int i = 0; i < values.length; ++i) {
+      values[i] = i;
+    }
+    long expected = 0;
+    for (int i = 0; i < total; ++i) {
+      expected += i & 1023;
+    }
+
+    for (int round = 0; round < 3; ++round) {
+      // 逐个入队、出队
+      SpscCircularQueue<Integer> q1 = new SpscCircularQueue<>(1024);
+      Thread p1 = new Thread(() -> {
+        for (int i = 0; i < total; ++i) {
+          while (!q1.enqueue(values[i & 1023])) Thread.yield();
+        }
+      });
+      long start = System.nanoTime();
+      p1.start();
+      long sum = 0;
+      for (int taken = 0; taken < total; ) {
+        Integer v = q1.dequeue();
+        if (v == null) {
+          Thread.yield();
+          continue;
+        }
+        sum += v;
+        ++taken;
+      }
+      p1.join();
+      long single = System.nanoTime() - start;
+      check(sum, expected);
+
+      // 按批入队、出队
+      SpscCircularQueue<Integer> q2 = new SpscCircularQueue<>(1024);
+      Thread p2 = new Thread(() -> {
+        Integer[] buf = new Integer[batch];
+        for (int i = 0; i < total; ) {
+          int n = Math.min(batch, total - i);
+          for (int j = 0; j < n; ++j) buf[j] = values[(i + j) & 1023];
+          int from = 0;
+          while (from < n) {
+            int done = q2.fill(buf, from, n - from);
+            if (done == 0) Thread.yield();
+            from += done;
+          }
+          i += n;
+        }
+      });
+      long[] batchSum = new long[1];
+      start = System.nanoTime();
+      p2.start();
+      for (int taken = 0; taken < total; ) {
+        int n = q2.drain(v -> batchSum[0] += v, batch);
+        if (n == 0) Thread.yield();
+        taken += n;
+      }
+      p2.join();
+      long batched = System.nanoTime() - start;
+      check(batchSum[0], expected);
+
+      System.out.printf("round %d: enqueue/dequeue %,d ops/s, fill/drain(%d) %,d ops/s%n",
+          round, (long) (total * 1e9 / single), batch, (long) (total * 1e9 / batched));
+    }
+  }
+
+  private static void check(long sum, long expected) {
+    if (sum != expected) throw new IllegalStateException("校验失败: " + sum + " != " + expected);
+  }
+}
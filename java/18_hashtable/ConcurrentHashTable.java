@@ -0,0 +1,269 @@
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @Description:分段锁的并发散列表实现
+ * <p>
+ * 按散列值的高位把整张表切分成若干段（Segment），每段是一个独立加锁、独立扩容的链表法散列表：
+ * 1. put/remove只锁住key所在的段，不同段的写线程互不阻塞；
+ * 2. get不加锁，通过volatile读桶头和next指针看到已发布的节点；
+ * 3. 扩容在段内完成，复制出新桶数组后一次性发布，其他段的读写不受影响，多个段可以同时扩容。
+ * 不支持null的key和value。
+ * @Date: Create in 2026-10-17
+ */
+public class ConcurrentHashTable<K, V> {
+
+    /**
+     * 每段散列表默认长度
+     */
+    private static final int DEFAULT_INITAL_CAPACITY = 8;
+
+    /**
+     * 默认段数
+     */
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /**
+     * 最大段数
+     */
+    private static final int MAX_SEGMENTS = 1 << 16;
+
+    /**
+     * 装载因子
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * 段数组，长度为2的幂
+     */
+    private final Segment<K, V>[] segments;
+
+    /**
+     * 散列值右移segmentShift位后与segmentMask相与得到段下标，用的是高位，桶下标用的是低位
+     */
+    private final int segmentShift;
+
+    private final int segmentMask;
+
+    public ConcurrentHashTable() {
+        this(DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * @param concurrencyLevel 预计的并发写线程数，向上取整为2的幂作为段数
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentHashTable(int concurrencyLevel) {
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("concurrencyLevel <= 0: " + concurrencyLevel);
+        }
+        int sshift = 0;
+        int ssize = 1;
+        while (ssize < concurrencyLevel && ssize < MAX_SEGMENTS) {
+            ++sshift;
+            ssize <<= 1;
+        }
+        segmentShift = 32 - sshift;
+        segmentMask = ssize - 1;
+        segments = (Segment<K, V>[]) new Segment<?, ?>[ssize];
+        for (int i = 0; i < ssize; i++) {
+            segments[i] = new Segment<>(DEFAULT_INITAL_CAPACITY);
+        }
+    }
+
+    static final class Entry<K, V> {
+        final K key;
+
+        final int hash;
+
+        volatile V value;
+
+        volatile Entry<K, V> next;
+
+        Entry(K key, int hash, V value, Entry<K, V> next) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /**
+     * 段：继承ReentrantLock，写操作持有本段的锁
+     */
+    static final class Segment<K, V> extends ReentrantLock {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 本段的桶数组，扩容时整体替换，volatile保证读线程拿到的是完整初始化过的数组
+         */
+        volatile AtomicReferenceArray<Entry<K, V>> table;
+
+        /**
+         * 本段元素数量
+         */
+        volatile int count;
+
+        /**
+         * 扩容阈值
+         */
+        int threshold;
+
+        Segment(int capacity) {
+            table = new AtomicReferenceArray<>(capacity);
+            threshold = (int) (capacity * LOAD_FACTOR);
+        }
+
+        V get(Object key, int hash) {
+            AtomicReferenceArray<Entry<K, V>> tab = table;
+            Entry<K, V> e = tab.get(hash & (tab.length() - 1));
+            while (e != null) {
+                if (e.hash == hash && key.equals(e.key)) {
+                    return e.value;
+                }
+                e = e.next;
+            }
+            return null;
+        }
+
+        void put(K key, int hash, V value) {
+            lock();
+            try {
+                AtomicReferenceArray<Entry<K, V>> tab = table;
+                int index = hash & (tab.length() - 1);
+                Entry<K, V> first = tab.get(index);
+                for (Entry<K, V> e = first; e != null; e = e.next) {
+                    // key相同，覆盖旧的数据
+                    if (e.hash == hash && key.equals(e.key)) {
+                        e.value = value;
+                        return;
+                    }
+                }
+                // 新节点插在链表头部，构造完成后再通过volatile写发布
+                tab.set(index, new Entry<>(key, hash, value, first));
+                if (++count > threshold) {
+                    resize();
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        void remove(Object key, int hash) {
+            lock();
+            try {
+                AtomicReferenceArray<Entry<K, V>> tab = table;
+                int index = hash & (tab.length() - 1);
+                Entry<K, V> pre = null;
+                Entry<K, V> e = tab.get(index);
+                while (e != null) {
+                    if (e.hash == hash && key.equals(e.key)) {
+                        // 被删节点的next保持不变，正在遍历它的读线程仍能走完后面的链表
+                        if (pre == null) {
+                            tab.set(index, e.next);
+                        } else {
+                            pre.next = e.next;
+                        }
+                        count--;
+                        return;
+                    }
+                    pre = e;
+                    e = e.next;
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * 段内扩容，调用方持有本段的锁
+         * <p>
+         * 复制出新的节点链到新数组，旧数组上的读线程不受影响，最后一次volatile写发布新数组
+         */
+        private void resize() {
+            AtomicReferenceArray<Entry<K, V>> oldTab = table;
+            int capacity = oldTab.length() * 2;
+            AtomicReferenceArray<Entry<K, V>> newTab = new AtomicReferenceArray<>(capacity);
+            for (int i = 0; i < oldTab.length(); i++) {
+                for (Entry<K, V> e = oldTab.get(i); e != null; e = e.next) {
+                    int index = e.hash & (capacity - 1);
+                    newTab.set(index, new Entry<>(e.key, e.hash, e.value, newTab.get(index)));
+                }
+            }
+            threshold = (int) (capacity * LOAD_FACTOR);
+            table = newTab;
+        }
+    }
+
+    /**
+     * 新增
+     *
+     * @param key
+     * @param value
+     */
+    public void put(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException();
+        }
+        int hash = hash(key);
+        segmentFor(hash).put(key, hash, value);
+    }
+
+    /**
+     * 获取，不加锁
+     *
+     * @param key
+     * @return
+     */
+    public V get(K key) {
+        if (key == null) {
+            return null;
+        }
+        int hash = hash(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    /**
+     * 删除
+     *
+     * @param key
+     */
+    public void remove(K key) {
+        if (key == null) {
+            return;
+        }
+        int hash = hash(key);
+        segmentFor(hash).remove(key, hash);
+    }
+
+    /**
+     * 元素数量，并发修改时只是一个近似值
+     *
+     * @return
+     */
+    public int size() {
+        int sum = 0;
+        for (Segment<K, V> segment : segments) {
+            sum += segment.count;
+        }
+        return sum;
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        return segments[(hash >>> segmentShift) & segmentMask];
+    }
+
+    /**
+     * 散列函数
+     * <p>
+     * 段下标取高位、桶下标取低位，所以这里要把高低位都充分打散
+     *
+     * @param key
+     * @return
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,119 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Description:ConcurrentHashTable与“HashTable + 全局锁”的吞吐量对比
+ * <p>
+ * 线程数从1翻倍到CPU核数，每个线程按readPercent的比例随机执行get，其余执行put，
+ * 输出每种实现每秒完成的操作数。用法：java ConcurrentHashTableBenchmark [keyCount] [readPercent] [seconds]
+ * @Date: Create in 2026-10-17
+ */
+public class ConcurrentHashTableBenchmark {
+
+    interface Table {
+        void put(Integer key, Integer value);
+
+        Integer get(Integer key);
+    }
+
+    /**
+     * 目前的用法：在HashTable外面包一层同步
+     */
+    static class SynchronizedHashTable implements Table {
+        private final HashTable<Integer, Integer> table = new HashTable<>();
+
+        @Override
+        public synchronized void put(Integer key, Integer value) {
+            table.put(key, value);
+        }
+
+        @Override
+        public synchronized Integer get(Integer key) {
+            return table.get(key);
+        }
+    }
+
+    static class Striped implements Table {
+        private final ConcurrentHashTable<Integer, Integer> table = new ConcurrentHashTable<>(64);
+
+        @Override
+        public void put(Integer key, Integer value) {
+            table.put(key, value);
+        }
+
+        @Override
+        public Integer get(Integer key) {
+            return table.get(key);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int keyCount = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+        int readPercent = args.length > 1 ? Integer.parseInt(args[1]) : 80;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+
+        // 预先创建key对象，避免装箱开销混进测量结果
+        Integer[] keys = new Integer[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = i;
+        }
+
+        System.out.printf("keys=%d, read=%d%%, %ds per run%n", keyCount, readPercent, seconds);
+        System.out.printf("%8s %20s %20s%n", "threads", "synchronized ops/s", "striped ops/s");
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            long sync = run(new SynchronizedHashTable(), keys, threads, readPercent, seconds);
+            long striped = run(new Striped(), keys, threads, readPercent, seconds);
+            System.out.printf("%8d %20d %20d%n", threads, sync, striped);
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+    }
+
+    private static long run(Table table, Integer[] keys, int threads, int readPercent, int seconds)
+            throws InterruptedException {
+        // 预热：先填满一半的key
+        for (int i = 0; i < keys.length; i += 2) {
+            table.put(keys[i], keys[i]);
+        }
+
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (!stop.get()) {
+                    for (int i = 0; i < 1024; i++) {
+                        Integer key = keys[random.nextInt(keys.length)];
+                        if (random.nextInt(100) < readPercent) {
+                            table.get(key);
+                        } else {
+                            table.put(key, key);
+                        }
+                    }
+                    done += 1024;
+                }
+                ops.add(done);
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        Thread.sleep(seconds * 1000L);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return ops.sum() / seconds;
+    }
+}
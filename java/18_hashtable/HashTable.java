@@ -1,3 +1,19 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
 /**
  * @Description:散列表实现
  * @Author: Hoda
@@ -5,7 +21,7 @@
  * @Modified By:
  * @Modified Date:
  */
-public class HashTable<K, V> {
+public class HashTable<K, V> implements Iterable<Map.Entry<K, V>> {
 
     /**
      * 散列表默认长度
@@ -17,6 +33,31 @@ public class HashTable<K, V> {
      */
     private static final float LOAD_FACTOR = 0.75f;
 
+    /**
+     * 渐进式扩容时，每次put/get/remove最多迁移的旧桶数量
+     */
+    private static final int REHASH_STEP = 4;
+
+    /**
+     * 链表长度达到该值时转换为平衡树
+     */
+    private static final int TREEIFY_THRESHOLD = 8;
+
+    /**
+     * 树中元素减少到该值时退化回链表，与TREEIFY_THRESHOLD错开避免来回转换
+     */
+    private static final int UNTREEIFY_THRESHOLD = 6;
+
+    /**
+     * 批量操作的key数量乘以该值不小于散列表长度时，才按桶下标分组访问
+     */
+    private static final int BATCH_GROUP_DENSITY = 8;
+
+    /**
+     * 快照文件魔数
+     */
+    private static final int SNAPSHOT_MAGIC = 0x48415348;
+
     /**
      * 初始化散列表数组
      */
@@ -32,22 +73,324 @@ public class HashTable<K, V> {
      */
     private int use = 0;
 
+    /**
+     * 是否使用渐进式扩容
+     */
+    private final boolean incrementalResize;
+
+    /**
+     * 渐进式扩容期间尚未迁移完的旧散列表，不在扩容时为null
+     */
+    private Entry<K, V>[] oldTable;
+
+    /**
+     * 旧散列表中下一个待迁移的桶下标，小于它的桶都已迁移到table
+     */
+    private int rehashIndex;
+
+    /**
+     * 结构修改次数（增删节点、迁移桶），遍历期间发生结构修改时迭代器快速失败
+     */
+    private int modCount;
+
+    /**
+     * 运行统计，未开启时为null，热路径上只多一次判空
+     */
+    private StatsRecorder stats;
+
     public HashTable() {
-        table = (Entry<K, V>[]) new Entry[DEFAULT_INITAL_CAPACITY];
+        this(false);
+    }
+
+    /**
+     * @param incrementalResize 为true时扩容不再一次性rehash所有链表，
+     *                          而是新旧两个散列表并存，由后续每次put/get/remove各迁移至多REHASH_STEP个旧桶，
+     *                          把一次长停顿摊平到多次操作上
+     */
+    public HashTable(boolean incrementalResize) {
+        this(incrementalResize, DEFAULT_INITAL_CAPACITY);
+    }
+
+    /**
+     * @param capacity 散列表长度，必须是2的幂
+     */
+    private HashTable(boolean incrementalResize, int capacity) {
+        this.incrementalResize = incrementalResize;
+        table = (Entry<K, V>[]) new Entry[capacity];
     }
 
-    static class Entry<K, V> {
+    /**
+     * 节点同时作为对外的键值对视图，setValue直接修改表中的值
+     */
+    static class Entry<K, V> implements Map.Entry<K, V> {
+        /**
+         * 缓存的完整散列值，遍历链表时先比较它，扩容时也不必重新调用hashCode()
+         */
+        final int hash;
+
         K key;
 
         V value;
 
         Entry<K, V> next;
 
-        Entry(K key, V value, Entry<K, V> next) {
+        Entry(int hash, K key, V value, Entry<K, V> next) {
+            this.hash = hash;
             this.key = key;
             this.value = value;
             this.next = next;
         }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        /**
+         * 按Map.Entry的约定，只比较key和value，和其他Map实现的Entry也可以互相比较
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, e.getKey()) && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * 树化桶的头节点
+     * <p>
+     * 桶内所有节点仍然通过TreeBin.next串成链表（扩容迁移时按链表拆分），
+     * 另外再用root组织成一棵按（散列值，Comparable）排序的AVL树，查找和删除是O(log n)
+     */
+    static final class TreeBin<K, V> extends Entry<K, V> {
+
+        TreeNode<K, V> root;
+
+        /**
+         * 桶内节点数量
+         */
+        int count;
+
+        /**
+         * 是否出现过散列值相同但类不同的key。不同类的对象也可能equals（如ArrayList和LinkedList），
+         * 它们在树中按类名分开排列，出现这种情况后查找失败时要再按链表兜底扫描一遍
+         */
+        boolean crossClass;
+
+        TreeBin() {
+            super(0, null, null, null);
+        }
+
+        TreeNode<K, V> find(int h, Object key) {
+            TreeNode<K, V> p = root;
+            while (p != null) {
+                int c = compareKeys(h, key, p.hash, p.key);
+                if (c < 0) {
+                    p = p.left;
+                } else if (c > 0) {
+                    p = p.right;
+                } else {
+                    // 排序相等的节点挂在同一个树节点的same链上，逐个用equals比较
+                    for (TreeNode<K, V> q = p; q != null; q = q.same) {
+                        if (q.hash == h && eq(key, q.key)) {
+                            return q;
+                        }
+                    }
+                    break;
+                }
+            }
+            if (crossClass) {
+                for (Entry<K, V> e = next; e != null; e = e.next) {
+                    if (e.hash == h && eq(key, e.key)) {
+                        return (TreeNode<K, V>) e;
+                    }
+                }
+            }
+            return null;
+        }
+
+        void putTreeNode(TreeNode<K, V> x) {
+            x.prev = this;
+            x.next = next;
+            if (next != null) {
+                ((TreeNode<K, V>) next).prev = x;
+            }
+            next = x;
+            root = insert(root, x);
+            count++;
+        }
+
+        void removeTreeNode(TreeNode<K, V> x) {
+            x.prev.next = x.next;
+            if (x.next != null) {
+                ((TreeNode<K, V>) x.next).prev = x.prev;
+            }
+            root = delete(root, x);
+            count--;
+        }
+
+        private TreeNode<K, V> insert(TreeNode<K, V> p, TreeNode<K, V> x) {
+            if (p == null) {
+                return x;
+            }
+            if (x.hash == p.hash && x.key != null && p.key != null && x.key.getClass() != p.key.getClass()) {
+                crossClass = true;
+            }
+            int c = compareKeys(x.hash, x.key, p.hash, p.key);
+            if (c < 0) {
+                p.left = insert(p.left, x);
+            } else if (c > 0) {
+                p.right = insert(p.right, x);
+            } else {
+                x.same = p.same;
+                p.same = x;
+                return p;
+            }
+            return balance(p);
+        }
+
+        private TreeNode<K, V> delete(TreeNode<K, V> p, TreeNode<K, V> x) {
+            if (p == null) {
+                return null;
+            }
+            int c = compareKeys(x.hash, x.key, p.hash, p.key);
+            if (c < 0) {
+                p.left = delete(p.left, x);
+            } else if (c > 0) {
+                p.right = delete(p.right, x);
+            } else if (p != x) {
+                // x在p的same链上，树结构不变
+                for (TreeNode<K, V> q = p; q.same != null; q = q.same) {
+                    if (q.same == x) {
+                        q.same = x.same;
+                        break;
+                    }
+                }
+                return p;
+            } else if (x.same != null) {
+                // 用same链上的下一个节点顶替x在树中的位置
+                TreeNode<K, V> s = x.same;
+                s.left = x.left;
+                s.right = x.right;
+                s.height = x.height;
+                return s;
+            } else if (p.left == null) {
+                return p.right;
+            } else if (p.right == null) {
+                return p.left;
+            } else {
+                TreeNode<K, V> m = p.right;
+                while (m.left != null) {
+                    m = m.left;
+                }
+                m.right = deleteMin(p.right);
+                m.left = p.left;
+                return balance(m);
+            }
+            return balance(p);
+        }
+
+        private TreeNode<K, V> deleteMin(TreeNode<K, V> p) {
+            if (p.left == null) {
+                return p.right;
+            }
+            p.left = deleteMin(p.left);
+            return balance(p);
+        }
+
+        private static int height(TreeNode<?, ?> p) {
+            return p == null ? 0 : p.height;
+        }
+
+        private static <K, V> TreeNode<K, V> balance(TreeNode<K, V> p) {
+            int diff = height(p.left) - height(p.right);
+            if (diff > 1) {
+                if (height(p.left.left) < height(p.left.right)) {
+                    p.left = rotateLeft(p.left);
+                }
+                return rotateRight(p);
+            }
+            if (diff < -1) {
+                if (height(p.right.right) < height(p.right.left)) {
+                    p.right = rotateRight(p.right);
+                }
+                return rotateLeft(p);
+            }
+            p.height = Math.max(height(p.left), height(p.right)) + 1;
+            return p;
+        }
+
+        private static <K, V> TreeNode<K, V> rotateLeft(TreeNode<K, V> p) {
+            TreeNode<K, V> r = p.right;
+            p.right = r.left;
+            r.left = p;
+            p.height = Math.max(height(p.left), height(p.right)) + 1;
+            r.height = Math.max(height(r.left), height(r.right)) + 1;
+            return r;
+        }
+
+        private static <K, V> TreeNode<K, V> rotateRight(TreeNode<K, V> p) {
+            TreeNode<K, V> l = p.left;
+            p.left = l.right;
+            l.right = p;
+            p.height = Math.max(height(p.left), height(p.right)) + 1;
+            l.height = Math.max(height(l.left), height(l.right)) + 1;
+            return l;
+        }
+    }
+
+    /**
+     * 树化桶中的节点
+     */
+    static final class TreeNode<K, V> extends Entry<K, V> {
+
+        /**
+         * 链表前驱，删除时不必从头遍历链表
+         */
+        Entry<K, V> prev;
+
+        TreeNode<K, V> left;
+
+        TreeNode<K, V> right;
+
+        int height = 1;
+
+        /**
+         * 与本节点排序相等（散列值相同且无法用compareTo区分）的其他节点
+         */
+        TreeNode<K, V> same;
+
+        TreeNode(int hash, K key, V value) {
+            super(hash, key, value, null);
+        }
     }
 
     /**
@@ -57,17 +400,39 @@ public class HashTable<K, V> {
      * @param value
      */
     public void put(K key, V value) {
-        int index = hash(key);
-        // 位置未被引用，创建哨兵节点
-        if (table[index] == null) {
-            table[index] = new Entry<>(null, null, null);
+        rehashStep();
+        putVal(hash(key), key, value);
+    }
+
+    private void putVal(int h, K key, V value) {
+        // 渐进式扩容期间，key可能还在未迁移的旧桶里
+        if (oldTable != null) {
+            Entry<K, V> old = findEntry(oldTable, key, h);
+            if (old != null) {
+                old.value = value;
+                return;
+            }
         }
 
-        Entry<K, V> tmp = table[index];
+        int index = indexFor(h, table.length);
+        if (table[index] instanceof TreeBin) {
+            TreeBin<K, V> bin = (TreeBin<K, V>) table[index];
+            TreeNode<K, V> p = bin.find(h, key);
+            if (p != null) {
+                p.value = value;
+            } else {
+                bin.putTreeNode(new TreeNode<>(h, key, value));
+                size++;
+                modCount++;
+            }
+            return;
+        }
+        Entry<K, V> first = table[index];
         // 新增节点
-        if (tmp.next == null) {
-            tmp.next = new Entry<>(key, value, null);
+        if (first == null) {
+            table[index] = new Entry<>(h, key, value, null);
             size++;
+            modCount++;
             use++;
             // 动态扩容
             if (use >= table.length * LOAD_FACTOR) {
@@ -76,18 +441,23 @@ public class HashTable<K, V> {
         }
         // 解决散列冲突，使用链表法
         else {
-            do {
-                tmp = tmp.next;
+            int binCount = 0;
+            for (Entry<K, V> e = first; e != null; e = e.next) {
+                binCount++;
                 // key相同，覆盖旧的数据
-                if (tmp.key == key) {
-                    tmp.value = value;
+                if (e.hash == h && eq(key, e.key)) {
+                    e.value = value;
                     return;
                 }
-            } while (tmp.next != null);
+            }
 
-            Entry<K, V> temp = table[index].next;
-            table[index].next = new Entry<>(key, value, temp);
+            table[index] = new Entry<>(h, key, value, first);
             size++;
+            modCount++;
+            // 链表过长，转换为平衡树
+            if (binCount + 1 >= TREEIFY_THRESHOLD) {
+                treeify(table, index);
+            }
         }
     }
 
@@ -99,34 +469,268 @@ public class HashTable<K, V> {
      * @param key
      * @return
      */
-    private int hash(Object key) {
+    private static int hash(Object key) {
         int h;
-        return (key == null) ? 0 : ((h = key.hashCode()) ^ (h >>> 16)) % table.length;
+        return (key == null) ? 0 : (h = key.hashCode()) ^ (h >>> 16);
+    }
+
+    /**
+     * 根据散列值计算桶下标
+     * <p>
+     * 散列表长度始终是2的幂，用位与代替取模，结果也不会因为散列值为负而越界
+     */
+    private static int indexFor(int h, int length) {
+        return h & (length - 1);
+    }
+
+    /**
+     * key比较：散列值相同后再用equals判断，避免相等但不是同一个对象的key被重复插入
+     */
+    private static boolean eq(Object k1, Object k2) {
+        return k1 == k2 || (k1 != null && k1.equals(k2));
+    }
+
+    /**
+     * 树化桶内的排序规则：先比较散列值，再比较类名，同类且实现了Comparable时用compareTo；
+     * 仍然相等的key归到同一个树节点的same链上
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static int compareKeys(int h1, Object k1, int h2, Object k2) {
+        if (h1 != h2) {
+            return h1 < h2 ? -1 : 1;
+        }
+        if (k1 == null || k2 == null) {
+            return k1 == k2 ? 0 : (k1 == null ? -1 : 1);
+        }
+        Class<?> c1 = k1.getClass();
+        Class<?> c2 = k2.getClass();
+        if (c1 != c2) {
+            return c1.getName().compareTo(c2.getName());
+        }
+        if (k1 instanceof Comparable) {
+            return ((Comparable) k1).compareTo(k2);
+        }
+        return 0;
+    }
+
+    /**
+     * 把tab[index]的链表转换为平衡树，已经是TreeNode的节点直接复用
+     */
+    private void treeify(Entry<K, V>[] tab, int index) {
+        TreeBin<K, V> bin = new TreeBin<>();
+        Entry<K, V> e = tab[index];
+        while (e != null) {
+            Entry<K, V> next = e.next;
+            bin.putTreeNode(toTreeNode(e));
+            e = next;
+        }
+        tab[index] = bin;
+    }
+
+    private TreeNode<K, V> toTreeNode(Entry<K, V> e) {
+        if (e instanceof TreeNode) {
+            TreeNode<K, V> t = (TreeNode<K, V>) e;
+            t.left = null;
+            t.right = null;
+            t.same = null;
+            t.height = 1;
+            return t;
+        }
+        return new TreeNode<>(e.hash, e.key, e.value);
+    }
+
+    /**
+     * 把tab[index]的平衡树退化为链表，树节点本身就是链表节点，只需去掉TreeBin头节点
+     */
+    private void untreeify(Entry<K, V>[] tab, int index) {
+        tab[index] = tab[index].next;
+    }
+
+    /**
+     * 链表长度达到阈值时树化table[index]
+     */
+    private void treeifyIfNeeded(int index) {
+        Entry<K, V> first = table[index];
+        if (first == null || first instanceof TreeBin) {
+            return;
+        }
+        int binCount = 0;
+        for (Entry<K, V> e = first; e != null; e = e.next) {
+            if (++binCount >= TREEIFY_THRESHOLD) {
+                treeify(table, index);
+                return;
+            }
+        }
     }
 
     /**
      * 扩容
      */
     private void resize() {
-        Entry<K, V>[] oldTable = table;
-        table = (Entry<K, V>[]) new Entry[table.length * 2];
+        if (stats == null) {
+            doResize();
+            return;
+        }
+        int oldLength = table.length;
+        long start = System.nanoTime();
+        doResize();
+        if (table.length != oldLength) {
+            stats.recordResize(System.nanoTime() - start);
+        }
+    }
+
+    private void doResize() {
+        if (oldTable != null) {
+            // 上一轮渐进式扩容还没迁移完，先全部迁完再开始新一轮
+            while (oldTable != null) {
+                rehashStep();
+            }
+            if (use < table.length * LOAD_FACTOR) {
+                return;
+            }
+        }
+        doubleTable(incrementalResize);
+    }
+
+    /**
+     * 分配两倍长度的新散列表。incremental为true时只记下旧表，由rehashStep逐步迁移，否则立即迁移全部旧桶
+     */
+    @SuppressWarnings("unchecked")
+    private void doubleTable(boolean incremental) {
+        Entry<K, V>[] oldTab = table;
+        table = (Entry<K, V>[]) new Entry<?, ?>[table.length * 2];
         use = 0;
-        for (int i = 0; i < oldTable.length; i++) {
-            if (oldTable[i] == null || oldTable[i].next == null) {
-                continue;
-            }
-            Entry<K, V> e = oldTable[i];
-            while (e.next != null) {
-                e = e.next;
-                int index = hash(e.key);
-                if (table[index] == null) {
-                    use++;
-                    // 创建哨兵节点
-                    table[index] = new Entry<>(null, null, null);
+        if (incremental) {
+            oldTable = oldTab;
+            rehashIndex = 0;
+            return;
+        }
+        for (int i = 0; i < oldTab.length; i++) {
+            transfer(oldTab, i);
+        }
+    }
+
+    /**
+     * 渐进式扩容：迁移至多REHASH_STEP个旧桶，全部迁移完后释放旧散列表
+     */
+    private void rehashStep() {
+        if (oldTable == null) {
+            return;
+        }
+        long start = stats != null ? System.nanoTime() : 0L;
+        int end = Math.min(rehashIndex + REHASH_STEP, oldTable.length);
+        while (rehashIndex < end) {
+            transfer(oldTable, rehashIndex++);
+        }
+        if (rehashIndex == oldTable.length) {
+            oldTable = null;
+        }
+        if (stats != null) {
+            stats.migrationNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * 把src中第i个桶的链表迁移到table
+     * <p>
+     * table的长度是src的两倍，旧桶i中的节点按hash & src.length拆成lo、hi两条链表，
+     * 分别挂到新表的i和i + src.length，直接复用原有节点，不分配新对象
+     */
+    private void transfer(Entry<K, V>[] src, int i) {
+        Entry<K, V> first = src[i];
+        src[i] = null;
+        if (first == null) {
+            return;
+        }
+        modCount++;
+        boolean wasTree = first instanceof TreeBin;
+        int oldCap = src.length;
+        Entry<K, V> loHead = null, loTail = null, hiHead = null, hiTail = null;
+        int loCount = 0, hiCount = 0;
+        Entry<K, V> e = wasTree ? first.next : first;
+        while (e != null) {
+            Entry<K, V> next = e.next;
+            if ((e.hash & oldCap) == 0) {
+                if (loTail == null) {
+                    loHead = e;
+                } else {
+                    loTail.next = e;
+                }
+                loTail = e;
+                loCount++;
+            } else {
+                if (hiTail == null) {
+                    hiHead = e;
+                } else {
+                    hiTail.next = e;
                 }
-                table[index].next = new Entry<>(e.key, e.value, table[index].next);
+                hiTail = e;
+                hiCount++;
+            }
+            e = next;
+        }
+        if (loTail != null) {
+            loTail.next = null;
+            splice(i, loHead, loTail, loCount, wasTree);
+        }
+        if (hiTail != null) {
+            hiTail.next = null;
+            splice(i + oldCap, hiHead, hiTail, hiCount, wasTree);
+        }
+    }
+
+    /**
+     * 把拆分出的链表挂到table[index]
+     */
+    private void splice(int index, Entry<K, V> head, Entry<K, V> tail, int count, boolean wasTree) {
+        Entry<K, V> dest = table[index];
+        if (dest == null) {
+            use++;
+            table[index] = head;
+            // 树化桶拆分后仍然较长的部分重新树化
+            if (wasTree ? count > UNTREEIFY_THRESHOLD : count >= TREEIFY_THRESHOLD) {
+                treeify(table, index);
+            }
+            return;
+        }
+        // 渐进式扩容期间，新表的桶里可能已经有新写入的节点
+        if (dest instanceof TreeBin) {
+            TreeBin<K, V> bin = (TreeBin<K, V>) dest;
+            Entry<K, V> e = head;
+            while (e != null) {
+                Entry<K, V> next = e.next;
+                bin.putTreeNode(toTreeNode(e));
+                e = next;
+            }
+            return;
+        }
+        tail.next = dest;
+        table[index] = head;
+        treeifyIfNeeded(index);
+    }
+
+    /**
+     * 在指定散列表中查找key对应的节点
+     */
+    private Entry<K, V> findEntry(Entry<K, V>[] tab, Object key, int h) {
+        Entry<K, V> e = tab[indexFor(h, tab.length)];
+        if (e instanceof TreeBin) {
+            if (stats != null) {
+                stats.treeLookups++;
             }
+            return ((TreeBin<K, V>) e).find(h, key);
         }
+        int probes = 0;
+        for (; e != null; e = e.next) {
+            probes++;
+            if (e.hash == h && eq(key, e.key)) {
+                break;
+            }
+        }
+        if (stats != null) {
+            stats.recordProbe(probes);
+        }
+        return e;
     }
 
     /**
@@ -135,24 +739,51 @@ public class HashTable<K, V> {
      * @param key
      */
     public void remove(K key) {
-        int index = hash(key);
-        Entry e = table[index];
-        if (e == null || e.next == null) {
+        rehashStep();
+        int h = hash(key);
+        if (oldTable != null && removeFrom(oldTable, key, h)) {
             return;
         }
+        removeFrom(table, key, h);
+    }
+
+    /**
+     * 从指定散列表中删除key，返回是否删除成功
+     */
+    private boolean removeFrom(Entry<K, V>[] tab, K key, int h) {
+        int index = indexFor(h, tab.length);
+        Entry<K, V> e = tab[index];
+        if (e instanceof TreeBin) {
+            TreeBin<K, V> bin = (TreeBin<K, V>) e;
+            TreeNode<K, V> p = bin.find(h, key);
+            if (p == null) {
+                return false;
+            }
+            bin.removeTreeNode(p);
+            size--;
+            modCount++;
+            if (bin.count <= UNTREEIFY_THRESHOLD) {
+                untreeify(tab, index);
+            }
+            return true;
+        }
 
-        Entry pre;
-        Entry<K, V> headNode = table[index];
-        do {
-            pre = e;
-            e = e.next;
-            if (key == e.key) {
-                pre.next = e.next;
+        Entry<K, V> pre = null;
+        for (; e != null; pre = e, e = e.next) {
+            if (e.hash == h && eq(key, e.key)) {
+                if (pre == null) {
+                    tab[index] = e.next;
+                } else {
+                    pre.next = e.next;
+                }
                 size--;
-                if (headNode.next == null) use--;
-                return;
+                modCount++;
+                // use只统计当前散列表，旧散列表的桶迁移时会重新计数
+                if (tab[index] == null && tab == table) use--;
+                return true;
             }
-        } while (e.next != null);
+        }
+        return false;
     }
 
     /**
@@ -162,17 +793,454 @@ public class HashTable<K, V> {
      * @return
      */
     public V get(K key) {
-        int index = hash(key);
-        Entry<K, V> e = table[index];
-        if (e == null || e.next == null) {
+        rehashStep();
+        return getVal(hash(key), key);
+    }
+
+    private V getVal(int h, K key) {
+        Entry<K, V> e = null;
+        if (oldTable != null) {
+            e = findEntry(oldTable, key, h);
+        }
+        if (e == null) {
+            e = findEntry(table, key, h);
+        }
+        return e == null ? null : e.value;
+    }
+
+    /**
+     * 批量新增，keys[i]对应values[i]，同一个key出现多次时以最后一次为准
+     * <p>
+     * 先按整批数据一次性扩容到位，避免批量插入过程中反复扩容；
+     * 批量足够密集时再把key按桶下标分组后依次插入，相邻的插入落在相邻的桶上
+     *
+     * @param keys
+     * @param values
+     */
+    public void putAll(K[] keys, V[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("keys.length != values.length: " + keys.length + ", " + values.length);
+        }
+        presize(size + keys.length);
+        int[] hashes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            hashes[i] = hash(keys[i]);
+        }
+        // 预扩容后批量插入过程中不会再扩容，桶下标保持不变
+        int[] order = groupByBucket(hashes);
+        for (int j = 0; j < keys.length; j++) {
+            int i = order == null ? j : order[j];
+            putVal(hashes[i], keys[i], values[i]);
+        }
+    }
+
+    /**
+     * 批量获取，结果写入values[i]，key不存在时为null
+     * <p>
+     * 和putAll一样，批量足够密集时按桶下标分组后再查找
+     *
+     * @param keys
+     * @param values 长度不小于keys.length
+     */
+    public void getAll(K[] keys, V[] values) {
+        if (values.length < keys.length) {
+            throw new IllegalArgumentException("values.length < keys.length: " + values.length + ", " + keys.length);
+        }
+        rehashStep();
+        int[] hashes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            hashes[i] = hash(keys[i]);
+        }
+        int[] order = groupByBucket(hashes);
+        for (int j = 0; j < keys.length; j++) {
+            int i = order == null ? j : order[j];
+            values[i] = getVal(hashes[i], keys[i]);
+        }
+    }
+
+    /**
+     * 返回按桶下标分组后的访问顺序
+     * <p>
+     * 不做完整排序，只用桶下标的高位做一遍计数排序：分组数与批量大小相当，
+     * 每组对应散列表中一段连续的桶，O(n)的代价就能让访问顺序沿着桶数组单调推进。
+     * 计数排序是稳定的，同一个key的多次出现保持原来的先后顺序。
+     * 批量相对散列表太稀疏时，相邻两次访问几乎不会落在同一个缓存行，分组得不偿失，返回null表示按原顺序访问
+     */
+    private int[] groupByBucket(int[] hashes) {
+        int n = hashes.length;
+        if ((long) n * BATCH_GROUP_DENSITY < table.length) {
             return null;
         }
-        while (e.next != null) {
-            e = e.next;
-            if (key == e.key) {
-                return e.value;
+        int tableBits = Integer.numberOfTrailingZeros(table.length);
+        int groupBits = Math.min(tableBits, 32 - Integer.numberOfLeadingZeros(Math.max(n - 1, 1)));
+        int shift = tableBits - groupBits;
+        int[] counts = new int[(1 << groupBits) + 1];
+        for (int h : hashes) {
+            counts[(indexFor(h, table.length) >>> shift) + 1]++;
+        }
+        for (int g = 1; g < counts.length; g++) {
+            counts[g] += counts[g - 1];
+        }
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[counts[indexFor(hashes[i], table.length) >>> shift]++] = i;
+        }
+        return order;
+    }
+
+    /**
+     * 一次性扩容到足以容纳expectedSize个元素，即使是渐进式扩容模式也立即迁移完
+     */
+    private void presize(int expectedSize) {
+        while (oldTable != null) {
+            rehashStep();
+        }
+        while (table.length * LOAD_FACTOR <= expectedSize) {
+            long start = stats != null ? System.nanoTime() : 0L;
+            doubleTable(false);
+            if (stats != null) {
+                stats.recordResize(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * 实际元素数量
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 遍历所有键值对，直接沿桶和链表访问节点，不复制数据
+     * <p>
+     * 遍历期间不能增删元素；渐进式扩容模式下get也会迁移桶，同样不能调用
+     *
+     * @param action
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        int expectedModCount = modCount;
+        if (oldTable != null) {
+            forEach(oldTable, action);
+        }
+        forEach(table, action);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    private static <K, V> void forEach(Entry<K, V>[] tab, BiConsumer<? super K, ? super V> action) {
+        for (Entry<K, V> head : tab) {
+            Entry<K, V> e = head instanceof TreeBin ? head.next : head;
+            for (; e != null; e = e.next) {
+                action.accept(e.key, e.value);
+            }
+        }
+    }
+
+    /**
+     * 键值对迭代器，返回的是表中节点本身，setValue会直接修改表中的值
+     *
+     * @return
+     */
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator();
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        private final int expectedModCount = modCount;
+
+        /**
+         * 当前遍历的散列表，先旧表后新表
+         */
+        private Entry<K, V>[] tab = oldTable != null ? oldTable : table;
+
+        private int index;
+
+        private Entry<K, V> next;
+
+        EntryIterator() {
+            advance();
+        }
+
+        /**
+         * 定位到下一个非空节点
+         */
+        private void advance() {
+            while (next == null) {
+                if (index == tab.length) {
+                    if (tab == table) {
+                        return;
+                    }
+                    tab = table;
+                    index = 0;
+                }
+                Entry<K, V> head = tab[index++];
+                next = head instanceof TreeBin ? head.next : head;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> e = next;
+            next = e.next;
+            advance();
+            return e;
+        }
+    }
+
+    /**
+     * 快照中key、value的编解码方式
+     */
+    public interface Codec<T> {
+        void write(DataOutput out, T value) throws IOException;
+
+        T read(DataInput in) throws IOException;
+    }
+
+    /**
+     * 把整张表写成二进制快照：魔数、散列表长度、元素数量，之后按桶的顺序依次写出每个键值对。
+     * 只做一次顺序写，不关闭out
+     *
+     * @param out
+     * @param keyCodec
+     * @param valueCodec
+     * @throws IOException
+     */
+    public void writeSnapshot(OutputStream out, Codec<? super K> keyCodec, Codec<? super V> valueCodec)
+            throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(SNAPSHOT_MAGIC);
+        data.writeInt(table.length);
+        data.writeInt(size);
+        int expectedModCount = modCount;
+        for (Map.Entry<K, V> e : this) {
+            keyCodec.write(data, e.getKey());
+            valueCodec.write(data, e.getValue());
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        data.flush();
+    }
+
+    /**
+     * 从快照恢复散列表
+     * <p>
+     * 按快照记录的长度一次分配好散列表，读出的节点直接挂到桶上：快照里的key互不相同，
+     * 不需要像put那样先遍历链表查重，也不会发生扩容。不关闭in
+     *
+     * @param in
+     * @param keyCodec
+     * @param valueCodec
+     * @return
+     * @throws IOException
+     */
+    public static <K, V> HashTable<K, V> readSnapshot(InputStream in, Codec<? extends K> keyCodec,
+                                                      Codec<? extends V> valueCodec) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("不是有效的散列表快照：魔数不匹配");
+        }
+        int capacity = data.readInt();
+        int count = data.readInt();
+        if (Integer.bitCount(capacity) != 1 || capacity < DEFAULT_INITAL_CAPACITY || count < 0) {
+            throw new IOException("不是有效的散列表快照：长度 " + capacity + "，元素数量 " + count);
+        }
+        HashTable<K, V> table = new HashTable<>(false, capacity);
+        Entry<K, V>[] tab = table.table;
+        for (int i = 0; i < count; i++) {
+            K key = keyCodec.read(data);
+            V value = valueCodec.read(data);
+            int h = hash(key);
+            int index = indexFor(h, capacity);
+            if (tab[index] == null) {
+                table.use++;
+            }
+            tab[index] = new Entry<>(h, key, value, tab[index]);
+        }
+        table.size = count;
+        for (int i = 0; i < capacity; i++) {
+            table.treeifyIfNeeded(i);
+        }
+        // 快照可能来自装载更满的表，恢复后按正常规则补一次扩容
+        if (table.use >= capacity * LOAD_FACTOR) {
+            table.resize();
+        }
+        return table;
+    }
+
+    /**
+     * 开启运行统计，已开启时清零重新统计
+     */
+    public void enableStats() {
+        stats = new StatsRecorder();
+    }
+
+    /**
+     * 关闭运行统计
+     */
+    public void disableStats() {
+        stats = null;
+    }
+
+    /**
+     * 获取当前状态快照。装载情况总是可用，探测长度和扩容数据只有开启统计后才会累计
+     *
+     * @return
+     */
+    public Stats stats() {
+        return new Stats(this, stats);
+    }
+
+    /**
+     * 统计数据的累加器，只在单线程中由散列表自身更新
+     */
+    private static final class StatsRecorder {
+
+        long[] probeHistogram = new long[Stats.HISTOGRAM_SIZE];
+
+        long treeLookups;
+
+        int resizeCount;
+
+        long resizeNanos;
+
+        long maxResizeNanos;
+
+        long migrationNanos;
+
+        void recordProbe(int probes) {
+            probeHistogram[Math.min(probes, Stats.HISTOGRAM_SIZE - 1)]++;
+        }
+
+        void recordResize(long nanos) {
+            resizeCount++;
+            resizeNanos += nanos;
+            maxResizeNanos = Math.max(maxResizeNanos, nanos);
+        }
+    }
+
+    /**
+     * 散列表状态快照，创建后不再变化
+     */
+    public static final class Stats {
+
+        /**
+         * 探测长度直方图的桶数，最后一个桶统计所有不小于HISTOGRAM_SIZE - 1的探测
+         */
+        public static final int HISTOGRAM_SIZE = 16;
+
+        /**
+         * 元素数量
+         */
+        public final int size;
+
+        /**
+         * 非空桶数量
+         */
+        public final int use;
+
+        /**
+         * 散列表长度
+         */
+        public final int capacity;
+
+        /**
+         * 实际装载因子 size / capacity
+         */
+        public final float loadFactor;
+
+        /**
+         * 是否处于渐进式扩容中
+         */
+        public final boolean migrating;
+
+        /**
+         * 是否开启了统计，未开启时以下字段都为0
+         */
+        public final boolean enabled;
+
+        /**
+         * 链表桶查找的探测长度直方图：probeHistogram[i]为比较了i个节点的查找次数，0表示命中空桶
+         */
+        public final long[] probeHistogram;
+
+        /**
+         * 在树化桶中的查找次数，不计入直方图
+         */
+        public final long treeLookups;
+
+        /**
+         * 扩容次数
+         */
+        public final int resizeCount;
+
+        /**
+         * 扩容累计耗时，渐进式扩容只包含分配新表的部分
+         */
+        public final long resizeNanos;
+
+        /**
+         * 单次扩容最长耗时
+         */
+        public final long maxResizeNanos;
+
+        /**
+         * 渐进式扩容中迁移旧桶的累计耗时
+         */
+        public final long migrationNanos;
+
+        private Stats(HashTable<?, ?> table, StatsRecorder recorder) {
+            size = table.size;
+            use = table.use;
+            capacity = table.table.length;
+            loadFactor = (float) size / capacity;
+            migrating = table.oldTable != null;
+            enabled = recorder != null;
+            probeHistogram = recorder != null ? recorder.probeHistogram.clone() : new long[HISTOGRAM_SIZE];
+            treeLookups = recorder != null ? recorder.treeLookups : 0L;
+            resizeCount = recorder != null ? recorder.resizeCount : 0;
+            resizeNanos = recorder != null ? recorder.resizeNanos : 0L;
+            maxResizeNanos = recorder != null ? recorder.maxResizeNanos : 0L;
+            migrationNanos = recorder != null ? recorder.migrationNanos : 0L;
+        }
+
+        /**
+         * 链表桶查找的平均探测长度
+         */
+        public double meanProbeLength() {
+            long count = 0;
+            long total = 0;
+            for (int i = 0; i < probeHistogram.length; i++) {
+                count += probeHistogram[i];
+                total += (long) i * probeHistogram[i];
             }
+            return count == 0 ? 0 : (double) total / count;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{size=" + size + ", use=" + use + ", capacity=" + capacity
+                    + ", loadFactor=" + loadFactor + ", migrating=" + migrating
+                    + ", meanProbeLength=" + meanProbeLength() + ", treeLookups=" + treeLookups
+                    + ", resizeCount=" + resizeCount + ", resizeNanos=" + resizeNanos
+                    + ", maxResizeNanos=" + maxResizeNanos + ", migrationNanos=" + migrationNanos + "}";
         }
-        return null;
     }
 }
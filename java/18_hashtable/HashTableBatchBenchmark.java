@@ -0,0 +1,72 @@
+import java.util.Random;
+
+/**
+ * @Description:HashTable批量接口putAll/getAll与逐个put/get的耗时对比
+ * <p>
+ * 每轮新建一张空表，按batchSize分批写入keyCount个key，再按同样的批次随机查找，输出每个操作的平均纳秒数。
+ * 用法：java HashTableBatchBenchmark [keyCount] [batchSize] [rounds]
+ * @Date: Create in 2026-10-17
+ */
+public class HashTableBatchBenchmark {
+
+    public static void main(String[] args) {
+        int keyCount = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        Random random = new Random(42);
+        Long[] keys = new Long[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = random.nextLong();
+        }
+        Long[] probes = new Long[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            probes[i] = keys[random.nextInt(keyCount)];
+        }
+
+        System.out.printf("keys=%d, batch=%d%n", keyCount, batchSize);
+        for (int round = 0; round < rounds; round++) {
+            HashTable<Long, Long> loop = new HashTable<>();
+            long start = System.nanoTime();
+            for (Long key : keys) {
+                loop.put(key, key);
+            }
+            long loopPut = System.nanoTime() - start;
+
+            HashTable<Long, Long> batch = new HashTable<>();
+            Long[] keyBatch = new Long[batchSize];
+            start = System.nanoTime();
+            for (int from = 0; from < keyCount; from += batchSize) {
+                int n = Math.min(batchSize, keyCount - from);
+                Long[] chunk = n == batchSize ? keyBatch : new Long[n];
+                System.arraycopy(keys, from, chunk, 0, n);
+                batch.putAll(chunk, chunk);
+            }
+            long batchPut = System.nanoTime() - start;
+
+            long sink = 0;
+            start = System.nanoTime();
+            for (Long probe : probes) {
+                sink += loop.get(probe);
+            }
+            long loopGet = System.nanoTime() - start;
+
+            Long[] result = new Long[batchSize];
+            start = System.nanoTime();
+            for (int from = 0; from < keyCount; from += batchSize) {
+                int n = Math.min(batchSize, keyCount - from);
+                Long[] chunk = n == batchSize ? keyBatch : new Long[n];
+                System.arraycopy(probes, from, chunk, 0, n);
+                batch.getAll(chunk, result);
+                for (int i = 0; i < n; i++) {
+                    sink -= result[i];
+                }
+            }
+            long batchGet = System.nanoTime() - start;
+
+            System.out.printf("round %d: put %.1f ns/op, putAll %.1f ns/op, get %.1f ns/op, getAll %.1f ns/op (%d)%n",
+                    round, (double) loopPut / keyCount, (double) batchPut / keyCount,
+                    (double) loopGet / keyCount, (double) batchGet / keyCount, sink);
+        }
+    }
+}
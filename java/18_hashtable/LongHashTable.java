@@ -0,0 +1,254 @@
+/**
+ * @Description:long键值的散列表实现（开放寻址法）
+ * <p>
+ * 与HashTable提供相同的put/get/remove接口，但键和值都直接存放在两个基本类型数组中，
+ * 采用线性探测解决冲突：没有哨兵节点，也没有每个元素一个的Entry对象，查找通常只访问一两个缓存行。
+ * 键0用作空槽标记，因此真正的键0单独存放在zeroValue中。
+ * @Date: Create in 2026-10-17
+ */
+public class LongHashTable {
+
+    /**
+     * 散列表默认长度
+     */
+    private static final int DEFAULT_INITAL_CAPACITY = 8;
+
+    /**
+     * 装载因子
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * 空槽标记
+     */
+    private static final long FREE_KEY = 0;
+
+    /**
+     * 键数组，长度始终为2的幂
+     */
+    private long[] keys;
+
+    /**
+     * 值数组，与keys下标一一对应
+     */
+    private long[] values;
+
+    /**
+     * 下标掩码，等于keys.length - 1
+     */
+    private int mask;
+
+    /**
+     * 扩容阈值
+     */
+    private int threshold;
+
+    /**
+     * 实际元素数量（包含键0）
+     */
+    private int size = 0;
+
+    /**
+     * 键0是否存在
+     */
+    private boolean hasZeroKey = false;
+
+    /**
+     * 键0对应的值
+     */
+    private long zeroValue;
+
+    /**
+     * 查找不到时get返回的值
+     */
+    private final long noValue;
+
+    public LongHashTable() {
+        this(DEFAULT_INITAL_CAPACITY, 0);
+    }
+
+    public LongHashTable(int initialCapacity) {
+        this(initialCapacity, 0);
+    }
+
+    public LongHashTable(int initialCapacity, long noValue) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity < 0: " + initialCapacity);
+        }
+        this.noValue = noValue;
+        // 保证容纳initialCapacity个元素时不触发扩容
+        int capacity = tableSizeFor((int) Math.ceil(Math.max(initialCapacity, 1) / LOAD_FACTOR));
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * 新增，key已存在时覆盖旧值
+     *
+     * @param key
+     * @param value
+     */
+    public void put(long key, long value) {
+        if (key == FREE_KEY) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int index = hash(key);
+        long k;
+        while ((k = keys[index]) != FREE_KEY) {
+            if (k == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        // 动态扩容
+        if (++size >= threshold) {
+            resize();
+        }
+    }
+
+    /**
+     * 获取
+     *
+     * @param key
+     * @return key不存在时返回构造时指定的noValue
+     */
+    public long get(long key) {
+        if (key == FREE_KEY) {
+            return hasZeroKey ? zeroValue : noValue;
+        }
+        int index = hash(key);
+        long k;
+        while ((k = keys[index]) != FREE_KEY) {
+            if (k == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return noValue;
+    }
+
+    /**
+     * 是否包含key，用于区分“不存在”和“值恰好等于noValue”
+     *
+     * @param key
+     * @return
+     */
+    public boolean containsKey(long key) {
+        if (key == FREE_KEY) {
+            return hasZeroKey;
+        }
+        int index = hash(key);
+        long k;
+        while ((k = keys[index]) != FREE_KEY) {
+            if (k == key) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * 删除
+     * <p>
+     * 线性探测下不能简单地把槽位置空，否则会截断后面的探测序列；
+     * 这里采用后移删除：把后续仍能落回空槽的元素逐个前移，不需要墓碑标记。
+     *
+     * @param key
+     */
+    public void remove(long key) {
+        if (key == FREE_KEY) {
+            if (hasZeroKey) {
+                hasZeroKey = false;
+                size--;
+            }
+            return;
+        }
+        int index = hash(key);
+        long k;
+        while ((k = keys[index]) != key) {
+            if (k == FREE_KEY) {
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        size--;
+        int gap = index;
+        index = (index + 1) & mask;
+        while ((k = keys[index]) != FREE_KEY) {
+            int home = hash(k);
+            // home不在(gap, index]区间内时，说明该元素可以前移到gap
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = k;
+                values[gap] = values[index];
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[gap] = FREE_KEY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 散列函数
+     * <p>
+     * 乘以64位黄金分割常数再把高32位折叠进低位，避免连续的id挤在相邻槽位形成长探测序列
+     *
+     * @param key
+     * @return
+     */
+    private int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * 扩容，只分配两个新数组，不产生任何节点对象
+     */
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        int capacity = oldKeys.length * 2;
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long k = oldKeys[i];
+            if (k == FREE_KEY) {
+                continue;
+            }
+            int index = hash(k);
+            while (keys[index] != FREE_KEY) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = k;
+            values[index] = oldValues[i];
+        }
+    }
+
+    /**
+     * 返回不小于cap的最小的2的幂
+     */
+    private static int tableSizeFor(int cap) {
+        int n = Integer.highestOneBit(Math.max(cap - 1, 1)) << 1;
+        return n < 0 ? 1 << 30 : n;
+    }
+}
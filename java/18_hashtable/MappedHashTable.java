@@ -0,0 +1,295 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * @Description:基于内存映射文件的堆外散列表
+ * <p>
+ * 所有数据都在映射文件里，不占Java堆，也不产生GC压力；进程重启后直接重新映射同一个文件即可继续get，无需重建。
+ * key和value都是调用方序列化好的字节数组，以“长度前缀 + 内容”的形式追加写入数据区。
+ * <p>
+ * 文件布局：
+ * 1. 头部HEADER_SIZE字节：魔数、槽位数、元素数量、数据区写入位置；
+ * 2. 槽位数组：每个槽位SLOT_SIZE字节，存记录偏移量（0表示空槽）和key的散列值，线性探测；
+ * 3. 数据区：每条记录为 keyLength(int) + valueLength(int) + key + value。
+ * <p>
+ * 槽位数和数据区大小在创建时确定，不支持扩容；覆盖和删除留下的旧记录不会回收，需要时重建文件。
+ * 单个文件通过一次map映射，总大小不能超过Integer.MAX_VALUE。非线程安全。
+ * <p>
+ * 文件不保证崩溃一致性：修改只写进映射内存，由操作系统择机刷盘，刷盘时也不保证按写入顺序落盘；
+ * 元素数量在槽位之后才更新，后移删除会连续改写多个槽位，中途崩溃都可能留下互相矛盾的槽位和元素数量。
+ * 只有force()或close()返回之后的文件内容是完整的，需要可靠持久化时应在force()之后再确认写入，
+ * 崩溃后不能信任文件内容，应当重建。
+ * @Date: Create in 2026-10-17
+ */
+public class MappedHashTable implements Closeable {
+
+    private static final int MAGIC = 0x48544231;
+
+    private static final int HEADER_SIZE = 32;
+
+    private static final int SLOT_SIZE = 12;
+
+    /**
+     * 装载因子，超过后拒绝插入新key
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int SLOT_COUNT_OFFSET = 4;
+    private static final int SIZE_OFFSET = 8;
+    private static final int DATA_END_OFFSET = 12;
+
+    private final RandomAccessFile file;
+
+    private final MappedByteBuffer buffer;
+
+    private final int slotCount;
+
+    private final int mask;
+
+    /**
+     * 数据区起始位置
+     */
+    private final int dataStart;
+
+    private MappedHashTable(RandomAccessFile file, MappedByteBuffer buffer, int slotCount) {
+        this.file = file;
+        this.buffer = buffer;
+        this.slotCount = slotCount;
+        this.mask = slotCount - 1;
+        this.dataStart = HEADER_SIZE + slotCount * SLOT_SIZE;
+    }
+
+    /**
+     * 打开已有的散列表文件，文件不存在时按给定容量新建
+     *
+     * @param path       文件路径
+     * @param capacity   最多容纳的key数量，仅新建时使用
+     * @param dataBytes  数据区字节数，仅新建时使用
+     * @return
+     * @throws IOException
+     */
+    public static MappedHashTable open(String path, int capacity, int dataBytes) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            if (file.length() > 0) {
+                return reopen(file);
+            }
+            int slotCount = Integer.highestOneBit(Math.max((int) Math.ceil(capacity / LOAD_FACTOR), 2) - 1) << 1;
+            long length = (long) HEADER_SIZE + (long) slotCount * SLOT_SIZE + dataBytes;
+            if (slotCount <= 0 || dataBytes < 0 || length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("散列表文件过大: capacity=" + capacity + ", dataBytes=" + dataBytes);
+            }
+            file.setLength(length);
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+            MappedHashTable table = new MappedHashTable(file, buffer, slotCount);
+            buffer.putInt(SLOT_COUNT_OFFSET, slotCount);
+            buffer.putInt(SIZE_OFFSET, 0);
+            buffer.putInt(DATA_END_OFFSET, table.dataStart);
+            // 魔数最后写，初始化中途抛出异常留下的文件重新打开时会因魔数不匹配被拒绝
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+            return table;
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private static MappedHashTable reopen(RandomAccessFile file) throws IOException {
+        long length = file.length();
+        if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+            throw new IOException("不是有效的散列表文件，长度: " + length);
+        }
+        MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+        if (buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("不是有效的散列表文件：魔数不匹配");
+        }
+        int slotCount = buffer.getInt(SLOT_COUNT_OFFSET);
+        if (Integer.bitCount(slotCount) != 1 || HEADER_SIZE + (long) slotCount * SLOT_SIZE > length) {
+            throw new IOException("不是有效的散列表文件：槽位数 " + slotCount);
+        }
+        // 数据区写入位置必须落在[数据区起始位置, 文件长度]之内，否则追加记录会越界或覆盖槽位
+        long dataStart = HEADER_SIZE + (long) slotCount * SLOT_SIZE;
+        int dataEnd = buffer.getInt(DATA_END_OFFSET);
+        if (dataEnd < dataStart || dataEnd > length) {
+            throw new IOException("不是有效的散列表文件：数据区写入位置 " + dataEnd);
+        }
+        int size = buffer.getInt(SIZE_OFFSET);
+        if (size < 0 || size > slotCount) {
+            throw new IOException("不是有效的散列表文件：元素数量 " + size);
+        }
+        return new MappedHashTable(file, buffer, slotCount);
+    }
+
+    /**
+     * 新增，key已存在时覆盖旧值
+     *
+     * @param key
+     * @param value
+     */
+    public void put(byte[] key, byte[] value) {
+        int h = hash(key);
+        int index = h & mask;
+        int offset;
+        while ((offset = slotOffset(index)) != 0) {
+            if (slotHash(index) == h && keyEquals(offset, key)) {
+                // 新值长度不变时原地覆盖，否则追加一条新记录
+                if (buffer.getInt(offset + 4) == value.length) {
+                    write(offset + 8 + key.length, value);
+                } else {
+                    setSlot(index, append(key, value), h);
+                }
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        int size = size();
+        if (size + 1 > slotCount * LOAD_FACTOR) {
+            throw new IllegalStateException("散列表已满: " + size);
+        }
+        // 先写记录再写槽位
+        setSlot(index, append(key, value), h);
+        buffer.putInt(SIZE_OFFSET, size + 1);
+    }
+
+    /**
+     * 获取
+     *
+     * @param key
+     * @return key不存在时返回null
+     */
+    public byte[] get(byte[] key) {
+        int h = hash(key);
+        int index = h & mask;
+        int offset;
+        while ((offset = slotOffset(index)) != 0) {
+            if (slotHash(index) == h && keyEquals(offset, key)) {
+                byte[] value = new byte[buffer.getInt(offset + 4)];
+                read(offset + 8 + key.length, value);
+                return value;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * 删除，采用和IntHashTable一样的后移删除
+     *
+     * @param key
+     */
+    public void remove(byte[] key) {
+        int h = hash(key);
+        int index = h & mask;
+        int offset;
+        while (true) {
+            offset = slotOffset(index);
+            if (offset == 0) {
+                return;
+            }
+            if (slotHash(index) == h && keyEquals(offset, key)) {
+                break;
+            }
+            index = (index + 1) & mask;
+        }
+        int gap = index;
+        index = (index + 1) & mask;
+        while ((offset = slotOffset(index)) != 0) {
+            int slotHash = slotHash(index);
+            int home = slotHash & mask;
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                setSlot(gap, offset, slotHash);
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+        setSlot(gap, 0, 0);
+        buffer.putInt(SIZE_OFFSET, size() - 1);
+    }
+
+    public int size() {
+        return buffer.getInt(SIZE_OFFSET);
+    }
+
+    /**
+     * 把修改刷到磁盘
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        file.close();
+    }
+
+    private static int hash(byte[] key) {
+        int h = Arrays.hashCode(key) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slotOffset(int index) {
+        return buffer.getInt(HEADER_SIZE + index * SLOT_SIZE);
+    }
+
+    private int slotHash(int index) {
+        return buffer.getInt(HEADER_SIZE + index * SLOT_SIZE + 4);
+    }
+
+    private void setSlot(int index, int offset, int h) {
+        int pos = HEADER_SIZE + index * SLOT_SIZE;
+        buffer.putInt(pos + 4, h);
+        buffer.putInt(pos, offset);
+    }
+
+    /**
+     * 追加一条记录到数据区，返回记录偏移量
+     */
+    private int append(byte[] key, byte[] value) {
+        int offset = buffer.getInt(DATA_END_OFFSET);
+        long end = (long) offset + 8 + key.length + value.length;
+        if (end > buffer.capacity()) {
+            throw new IllegalStateException("数据区已满: " + offset);
+        }
+        buffer.putInt(offset, key.length);
+        buffer.putInt(offset + 4, value.length);
+        write(offset + 8, key);
+        write(offset + 8 + key.length, value);
+        buffer.putInt(DATA_END_OFFSET, (int) end);
+        return offset;
+    }
+
+    /**
+     * ByteBuffer.equals按剩余内容整段比较，不用逐个字节调用get
+     */
+    private boolean keyEquals(int offset, byte[] key) {
+        if (buffer.getInt(offset) != key.length) {
+            return false;
+        }
+        return view(offset + 8, key.length).equals(ByteBuffer.wrap(key));
+    }
+
+    private void write(int pos, byte[] src) {
+        view(pos, src.length).put(src);
+    }
+
+    private void read(int pos, byte[] dst) {
+        view(pos, dst.length).get(dst);
+    }
+
+    /**
+     * 共享映射内存、只包含[pos, pos + length)的视图，批量读写不改变buffer自己的position
+     */
+    private ByteBuffer view(int pos, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(pos);
+        view.limit(pos + length);
+        return view;
+    }
+}
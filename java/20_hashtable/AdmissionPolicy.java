@@ -0,0 +1,25 @@
+/**
+ * @Description:缓存的准入策略
+ * <p>
+ * LRUBaseHashTable默认把所有新元素放到头部，一次大范围的顺序扫描就会把热点数据全部挤出去。
+ * 准入策略记录访问历史，在缓存已满、需要淘汰时判断候选元素是否值得替换掉淘汰者。
+ * @Date: Create in 2026-10-17
+ */
+public interface AdmissionPolicy<K> {
+
+    /**
+     * 记录一次对key的访问，命中和未命中都要记录
+     *
+     * @param key
+     */
+    void record(K key);
+
+    /**
+     * 缓存已满时，判断候选元素是否可以替换淘汰者
+     *
+     * @param candidate 新进入缓存的候选元素
+     * @param victim    按LRU即将被淘汰的元素
+     * @return true表示淘汰victim、保留candidate；false表示直接丢弃candidate
+     */
+    boolean admit(K candidate, K victim);
+}
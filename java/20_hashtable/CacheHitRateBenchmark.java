@@ -0,0 +1,133 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * @Description:按访问轨迹回放，对比不同缓存策略的命中率
+ * <p>
+ * 每条访问先get，未命中再add，统计命中率。轨迹可以来自文件（每行一个long类型的key），
+ * 也可以用内置的混合负载：偏斜分布的点查询中间穿插大范围的顺序扫描，扫描的key只出现一次。
+ * 最后再用一条全部命中的轨迹（热点key不超过容量的一半）单独比较命中路径的耗时。
+ * 用法：java CacheHitRateBenchmark [capacity] [traceFile]
+ * @Date: Create in 2026-10-17
+ */
+public class CacheHitRateBenchmark {
+
+    interface Cache {
+        Long get(Long key);
+
+        void add(Long key, Long value);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int capacity = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        long[] trace = args.length > 1 ? readTrace(args[1]) : mixedTrace(capacity, 2000000, 42);
+
+        System.out.printf("capacity=%d, accesses=%d%n", capacity, trace.length);
+        LRUBaseHashTable<Long, Long> lru = new LRUBaseHashTable<>(capacity);
+        report("LRU", trace, wrap(lru::get, lru::add));
+        LRUBaseHashTable<Long, Long> tinyLfu = new LRUBaseHashTable<>(capacity, new TinyLfuAdmission<>(capacity));
+        report("W-TinyLFU", trace, wrap(tinyLfu::get, tinyLfu::add));
+        ClockCache<Long, Long> clock = new ClockCache<>(capacity);
+        report("CLOCK", trace, wrap(clock::get, clock::add));
+
+        long[] hits = hitTrace(capacity, trace.length, 7);
+        System.out.println("hit path:");
+        for (int round = 0; round < 3; round++) {
+            LRUBaseHashTable<Long, Long> lruHits = new LRUBaseHashTable<>(capacity);
+            report("LRU", hits, wrap(lruHits::get, lruHits::add));
+            ClockCache<Long, Long> clockHits = new ClockCache<>(capacity);
+            report("CLOCK", hits, wrap(clockHits::get, clockHits::add));
+        }
+    }
+
+    static Cache wrap(Function<Long, Long> getter, BiConsumer<Long, Long> adder) {
+        return new Cache() {
+            @Override
+            public Long get(Long key) {
+                return getter.apply(key);
+            }
+
+            @Override
+            public void add(Long key, Long value) {
+                adder.accept(key, value);
+            }
+        };
+    }
+
+    static void report(String name, long[] trace, Cache cache) {
+        long hits = 0;
+        long start = System.nanoTime();
+        for (long k : trace) {
+            Long key = k;
+            if (cache.get(key) != null) {
+                hits++;
+            } else {
+                cache.add(key, key);
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%-12s hit rate %6.2f%%, %.1f ns/access%n",
+                name, 100.0 * hits / trace.length, (double) nanos / trace.length);
+    }
+
+    /**
+     * 混合负载：热点key服从近似Zipf分布，每隔一段时间插入一次长度为capacity两倍的顺序扫描
+     */
+    static long[] mixedTrace(int capacity, int length, long seed) {
+        Random random = new Random(seed);
+        int hotKeys = capacity * 4;
+        int scanLength = capacity * 2;
+        int scanEvery = capacity * 20;
+        long scanKey = Long.MAX_VALUE / 2;
+        long[] trace = new long[length];
+        int i = 0;
+        while (i < length) {
+            if (i > 0 && i % scanEvery == 0) {
+                for (int j = 0; j < scanLength && i < length; j++) {
+                    trace[i++] = scanKey++;
+                }
+                continue;
+            }
+            // 对数均匀分布，近似参数为1的Zipf分布
+            trace[i++] = (long) Math.exp(random.nextDouble() * Math.log(hotKeys));
+        }
+        return trace;
+    }
+
+    /**
+     * 只访问capacity / 2个key，除了首次访问都会命中
+     */
+    static long[] hitTrace(int capacity, int length, long seed) {
+        Random random = new Random(seed);
+        int keys = Math.max(1, capacity / 2);
+        long[] trace = new long[length];
+        for (int i = 0; i < length; i++) {
+            trace[i] = random.nextInt(keys);
+        }
+        return trace;
+    }
+
+    static long[] readTrace(String file) throws IOException {
+        List<Long> keys = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    keys.add(Long.parseLong(line));
+                }
+            }
+        }
+        long[] trace = new long[keys.size()];
+        for (int i = 0; i < trace.length; i++) {
+            trace[i] = keys.get(i);
+        }
+        return trace;
+    }
+}
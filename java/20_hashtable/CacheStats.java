@@ -0,0 +1,105 @@
+/**
+ * @Description:缓存统计的不可变快照，由StatsCounter.snapshot()生成
+ * <p>
+ * 两个快照相减（minus）可以得到一段时间内的增量，用于按时间窗口观察命中率。
+ * @Date: Create in 2026-10-17
+ */
+public final class CacheStats {
+
+    static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0);
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long evictionCount;
+
+    private final long loadSuccessCount;
+
+    private final long loadFailureCount;
+
+    /**
+     * 加载总耗时（纳秒）
+     */
+    private final long totalLoadTime;
+
+    public CacheStats(long hitCount, long missCount, long evictionCount,
+                      long loadSuccessCount, long loadFailureCount, long totalLoadTime) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * 命中率，没有请求时为1
+     */
+    public double hitRate() {
+        long requests = requestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    public double missRate() {
+        long requests = requestCount();
+        return requests == 0 ? 0.0 : (double) missCount / requests;
+    }
+
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    public long loadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public long loadFailureCount() {
+        return loadFailureCount;
+    }
+
+    public long totalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * 平均每次加载的耗时（纳秒）
+     */
+    public double averageLoadPenalty() {
+        long loads = loadSuccessCount + loadFailureCount;
+        return loads == 0 ? 0.0 : (double) totalLoadTime / loads;
+    }
+
+    /**
+     * 本快照减去更早的快照，得到两次快照之间的增量
+     */
+    public CacheStats minus(CacheStats other) {
+        return new CacheStats(
+                Math.max(0, hitCount - other.hitCount),
+                Math.max(0, missCount - other.missCount),
+                Math.max(0, evictionCount - other.evictionCount),
+                Math.max(0, loadSuccessCount - other.loadSuccessCount),
+                Math.max(0, loadFailureCount - other.loadFailureCount),
+                Math.max(0, totalLoadTime - other.totalLoadTime));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheStats{hits=%d, misses=%d, hitRate=%.2f%%, evictions=%d, "
+                        + "loadSuccess=%d, loadFailure=%d, avgLoadPenalty=%.1fns}",
+                hitCount, missCount, hitRate() * 100, evictionCount,
+                loadSuccessCount, loadFailureCount, averageLoadPenalty());
+    }
+}
@@ -0,0 +1,211 @@
+import java.util.HashMap;
+
+/**
+ * @Description:基于CLOCK算法的缓存，LRU的近似实现
+ * <p>
+ * LRUBaseHashTable每次命中都要把节点摘下再插到链表头部，修改四五个指针，这也是加锁时竞争最激烈的地方。
+ * CLOCK把元素放在一个环形数组里，每个槽位一个访问位：
+ * 1. 命中时只把访问位置为true，一次写操作，不改变任何结构；
+ * 2. 需要淘汰时，指针（hand）沿环扫描，访问位为true的清零后跳过（再给一次机会），遇到false的就淘汰。
+ * 新元素写入时访问位为false，要在指针转一圈之前再被访问一次才能留下，对一次性的顺序扫描也有一定抵抗力。
+ * <p>
+ * 接口与LRUBaseHashTable相同，非线程安全。
+ * @Date: Create in 2026-10-17
+ */
+public class ClockCache<K, V> {
+
+    /**
+     * 默认容量
+     */
+    private final static int DEFAULT_CAPACITY = 10;
+
+    private final K[] keys;
+
+    private final V[] values;
+
+    /**
+     * 访问位
+     */
+    private final boolean[] referenced;
+
+    /**
+     * key -> 槽位
+     */
+    private final HashMap<K, Integer> index;
+
+    /**
+     * 被remove空出来的槽位，缓存未满时优先使用
+     */
+    private final int[] freeSlots;
+
+    private int freeCount;
+
+    /**
+     * 从未使用过的槽位从used开始
+     */
+    private int used;
+
+    /**
+     * 时钟指针，指向下一个要检查的槽位
+     */
+    private int hand;
+
+    private final int capacity;
+
+    /**
+     * 命中率统计，默认关闭
+     */
+    private StatsCounter stats = StatsCounter.disabled();
+
+    public ClockCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ClockCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity <= 0: " + capacity);
+        }
+        this.capacity = capacity;
+        keys = (K[]) new Object[capacity];
+        values = (V[]) new Object[capacity];
+        referenced = new boolean[capacity];
+        freeSlots = new int[capacity];
+        index = new HashMap<>(capacity * 4 / 3 + 1);
+    }
+
+    /**
+     * 新增
+     *
+     * @param key
+     * @param value
+     */
+    public void add(K key, V value) {
+        Integer slot = index.get(key);
+        if (slot != null) {
+            values[slot] = value;
+            referenced[slot] = true;
+            return;
+        }
+        int s;
+        if (freeCount > 0) {
+            s = freeSlots[--freeCount];
+        } else if (used < capacity) {
+            s = used++;
+        } else {
+            s = evict();
+        }
+        keys[s] = key;
+        values[s] = value;
+        referenced[s] = false;
+        index.put(key, s);
+    }
+
+    /**
+     * 获取，命中时只设置访问位
+     *
+     * @param key
+     * @return
+     */
+    public V get(K key) {
+        Integer slot = index.get(key);
+        if (slot == null) {
+            stats.recordMisses(1);
+            return null;
+        }
+        stats.recordHits(1);
+        referenced[slot] = true;
+        return values[slot];
+    }
+
+    /**
+     * 移除
+     *
+     * @param key
+     */
+    public void remove(K key) {
+        Integer slot = index.remove(key);
+        if (slot == null) {
+            return;
+        }
+        keys[slot] = null;
+        values[slot] = null;
+        referenced[slot] = false;
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * 缓存的元素个数
+     *
+     * @return
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * 缓存已满（没有空槽位）时，转动指针找到第一个访问位为false的槽位并淘汰；
+     * 最坏情况下所有访问位都为true，转一圈清零后回到起点，仍然是O(n)次以内
+     *
+     * @return 空出来的槽位
+     */
+    private int evict() {
+        while (referenced[hand]) {
+            referenced[hand] = false;
+            if (++hand == capacity) {
+                hand = 0;
+            }
+        }
+        int victim = hand;
+        if (++hand == capacity) {
+            hand = 0;
+        }
+        index.remove(keys[victim]);
+        stats.recordEviction();
+        return victim;
+    }
+
+    /**
+     * 开启命中率统计，已开启时清零重新统计
+     */
+    public void enableStats() {
+        stats = new StatsCounter();
+    }
+
+    /**
+     * 关闭命中率统计
+     */
+    public void disableStats() {
+        stats = StatsCounter.disabled();
+    }
+
+    /**
+     * 获取统计快照，未开启时各项均为0
+     *
+     * @return
+     */
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
+    private void printAll() {
+        for (int i = 0; i < used; i++) {
+            if (index.get(keys[i]) != null && index.get(keys[i]) == i) {
+                System.out.print(keys[i] + "=" + values[i] + (referenced[i] ? "*" : "") + ",");
+            }
+        }
+        System.out.println();
+    }
+
+    public static void main(String[] args) {
+        ClockCache<Integer, String> cache = new ClockCache<>(3);
+        cache.add(1, "a");
+        cache.add(2, "b");
+        cache.add(3, "c");
+        cache.get(1);
+        cache.printAll();
+        // 1的访问位为true，被跳过，淘汰2
+        cache.add(4, "d");
+        cache.printAll();
+    }
+}
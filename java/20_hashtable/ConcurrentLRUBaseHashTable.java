@@ -0,0 +1,227 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * @Description:分段加锁的并发LRU缓存
+ * <p>
+ * LRUBaseHashTable的get会通过moveToHead修改链表，即使是只读负载也需要一把全局锁。
+ * 这里按key的散列值把缓存切分成若干段，每段是一个独立加锁的LRUBaseHashTable，
+ * 不同段上的读写互不阻塞。总容量按段数平分，除不尽的余数分给前几段，各段容量之和等于总容量，
+ * 淘汰只在段内按LRU进行，整体上是近似LRU。
+ * 过期设置原样传给每一段的LRUBaseHashTable，各段用自己的时间轮删除过期元素。
+ * @Date: Create in 2026-10-17
+ */
+public class ConcurrentLRUBaseHashTable<K, V> {
+
+    /**
+     * 默认段数
+     */
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /**
+     * 最大段数
+     */
+    private static final int MAX_SEGMENTS = 1 << 16;
+
+    private final Segment<K, V>[] segments;
+
+    private final int segmentMask;
+
+    /**
+     * 所有分段共用的统计计数器，LongAdder计数不会让分段之间互相竞争
+     */
+    private volatile StatsCounter stats = StatsCounter.disabled();
+
+    /**
+     * 一段缓存和保护它的锁
+     */
+    static final class Segment<K, V> extends ReentrantLock {
+
+        private static final long serialVersionUID = 1L;
+
+        final transient LRUBaseHashTable<K, V> cache;
+
+        Segment(int capacity) {
+            cache = new LRUBaseHashTable<>(capacity);
+        }
+    }
+
+    public ConcurrentLRUBaseHashTable(int capacity) {
+        this(capacity, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * @param capacity         总容量
+     * @param concurrencyLevel 预计的并发线程数，向上取整为2的幂作为段数，且不超过capacity
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLRUBaseHashTable(int capacity, int concurrencyLevel) {
+        if (capacity <= 0 || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("capacity=" + capacity + ", concurrencyLevel=" + concurrencyLevel);
+        }
+        int ssize = 1;
+        while (ssize < concurrencyLevel && ssize < MAX_SEGMENTS && ssize * 2 <= capacity) {
+            ssize <<= 1;
+        }
+        segmentMask = ssize - 1;
+        segments = (Segment<K, V>[]) new Segment<?, ?>[ssize];
+        // ssize不超过capacity，每段至少1
+        int segmentCapacity = capacity / ssize;
+        int remainder = capacity % ssize;
+        for (int i = 0; i < ssize; i++) {
+            segments[i] = new Segment<>(i < remainder ? segmentCapacity + 1 : segmentCapacity);
+        }
+    }
+
+    /**
+     * 元素写入后经过duration过期，只能在缓存为空时设置
+     *
+     * @param duration
+     * @param unit
+     * @return this
+     */
+    public ConcurrentLRUBaseHashTable<K, V> expireAfterWrite(long duration, TimeUnit unit) {
+        forEachSegment(cache -> cache.expireAfterWrite(duration, unit));
+        return this;
+    }
+
+    /**
+     * 元素最后一次写入或读取后经过duration过期，只能在缓存为空时设置
+     *
+     * @param duration
+     * @param unit
+     * @return this
+     */
+    public ConcurrentLRUBaseHashTable<K, V> expireAfterAccess(long duration, TimeUnit unit) {
+        forEachSegment(cache -> cache.expireAfterAccess(duration, unit));
+        return this;
+    }
+
+    /**
+     * 设置时间源，只能在缓存为空时设置
+     *
+     * @param ticker 返回纳秒时间
+     * @return this
+     */
+    public ConcurrentLRUBaseHashTable<K, V> ticker(LongSupplier ticker) {
+        forEachSegment(cache -> cache.ticker(ticker));
+        return this;
+    }
+
+    /**
+     * 新增
+     *
+     * @param key
+     * @param value
+     */
+    public void add(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock();
+        try {
+            segment.cache.add(key, value);
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * 获取节点数据
+     *
+     * @param key
+     * @return
+     */
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock();
+        try {
+            return segment.cache.get(key);
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * 移除节点数据
+     *
+     * @param key
+     */
+    public void remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock();
+        try {
+            segment.cache.remove(key);
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * 元素个数，并发修改时只是一个近似值
+     *
+     * @return
+     */
+    public int size() {
+        int sum = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.lock();
+            try {
+                sum += segment.cache.size();
+            } finally {
+                segment.unlock();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 开启命中率统计，已开启时清零重新统计
+     */
+    public void enableStats() {
+        setStats(new StatsCounter());
+    }
+
+    /**
+     * 关闭命中率统计
+     */
+    public void disableStats() {
+        setStats(StatsCounter.disabled());
+    }
+
+    /**
+     * 获取所有分段汇总的统计快照，未开启时各项均为0
+     *
+     * @return
+     */
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
+    private void setStats(StatsCounter counter) {
+        stats = counter;
+        forEachSegment(cache -> cache.recordStats(counter));
+    }
+
+    /**
+     * 依次锁住每一段执行action
+     */
+    private void forEachSegment(Consumer<LRUBaseHashTable<K, V>> action) {
+        for (Segment<K, V> segment : segments) {
+            segment.lock();
+            try {
+                action.accept(segment.cache);
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    /**
+     * 段内的LRUBaseHashTable用HashMap再做一次散列，这里取打散后的高位选段，避免和HashMap的低位相关
+     */
+    private Segment<K, V> segmentFor(Object key) {
+        int h = key == null ? 0 : key.hashCode() * 0x9E3779B9;
+        return segments[(h >>> 16) & segmentMask];
+    }
+}
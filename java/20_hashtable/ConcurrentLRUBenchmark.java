@@ -0,0 +1,122 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Description:ConcurrentLRUBaseHashTable与“LRUBaseHashTable + 全局锁”的吞吐量对比
+ * <p>
+ * 线程数从1翻倍到CPU核数，每个线程按readPercent的比例随机执行get，其余执行add，key服从偏斜分布，
+ * 输出每种实现每秒完成的操作数。用法：java ConcurrentLRUBenchmark [capacity] [keySpace] [readPercent] [seconds]
+ * @Date: Create in 2026-10-17
+ */
+public class ConcurrentLRUBenchmark {
+
+    interface Cache {
+        void add(Integer key, Integer value);
+
+        Integer get(Integer key);
+    }
+
+    static class SynchronizedLRU implements Cache {
+        private final LRUBaseHashTable<Integer, Integer> cache;
+
+        SynchronizedLRU(int capacity) {
+            cache = new LRUBaseHashTable<>(capacity);
+        }
+
+        @Override
+        public synchronized void add(Integer key, Integer value) {
+            cache.add(key, value);
+        }
+
+        @Override
+        public synchronized Integer get(Integer key) {
+            return cache.get(key);
+        }
+    }
+
+    static class SegmentedLRU implements Cache {
+        private final ConcurrentLRUBaseHashTable<Integer, Integer> cache;
+
+        SegmentedLRU(int capacity) {
+            cache = new ConcurrentLRUBaseHashTable<>(capacity, 64);
+        }
+
+        @Override
+        public void add(Integer key, Integer value) {
+            cache.add(key, value);
+        }
+
+        @Override
+        public Integer get(Integer key) {
+            return cache.get(key);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int capacity = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 16;
+        int keySpace = args.length > 1 ? Integer.parseInt(args[1]) : 1 << 18;
+        int readPercent = args.length > 2 ? Integer.parseInt(args[2]) : 90;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+
+        Integer[] keys = new Integer[keySpace];
+        for (int i = 0; i < keySpace; i++) {
+            keys[i] = i;
+        }
+
+        System.out.printf("capacity=%d, keys=%d, read=%d%%, %ds per run%n", capacity, keySpace, readPercent, seconds);
+        System.out.printf("%8s %20s %20s%n", "threads", "synchronized ops/s", "segmented ops/s");
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            long sync = run(new SynchronizedLRU(capacity), keys, threads, readPercent, seconds);
+            long segmented = run(new SegmentedLRU(capacity), keys, threads, readPercent, seconds);
+            System.out.printf("%8d %20d %20d%n", threads, sync, segmented);
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+    }
+
+    private static long run(Cache cache, Integer[] keys, int threads, int readPercent, int seconds)
+            throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (!stop.get()) {
+                    for (int i = 0; i < 1024; i++) {
+                        // 两个均匀随机数取小，得到偏向小key的分布，模拟热点
+                        Integer key = keys[Math.min(random.nextInt(keys.length), random.nextInt(keys.length))];
+                        if (random.nextInt(100) < readPercent) {
+                            if (cache.get(key) == null) {
+                                cache.add(key, key);
+                            }
+                        } else {
+                            cache.add(key, key);
+                        }
+                    }
+                    done += 1024;
+                }
+                ops.add(done);
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        Thread.sleep(seconds * 1000L);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return ops.sum() / seconds;
+    }
+}
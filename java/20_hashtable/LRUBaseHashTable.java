@@ -1,4 +1,22 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 /**
  * @Description:基于散列表的LRU算法
@@ -14,6 +32,11 @@ public class LRUBaseHashTable<K, V> {
      */
     private final static Integer DEFAULT_CAPACITY = 10;
 
+    /**
+     * 快照文件魔数
+     */
+    private static final int SNAPSHOT_MAGIC = 0x4C525553;
+
     /**
      * 头结点
      */
@@ -30,19 +53,81 @@ public class LRUBaseHashTable<K, V> {
     private Integer length;
 
     /**
-     * 链表容量
+     * 容量，即所有元素权重之和的上限；不指定weigher时每个元素权重为1，容量就是元素个数
+     */
+    private final long maxWeight;
+
+    /**
+     * 当前所有元素的权重之和
+     */
+    private long weightedSize;
+
+    /**
+     * 权重计算函数，为null时每个元素权重为1
      */
-    private Integer capacity;
+    private final Weigher<? super K, ? super V> weigher;
 
     /**
      * 散列表存储key
      */
     private HashMap<K, DNode<K, V>> table;
 
+    /**
+     * 准入策略，为null时所有新元素直接进入头部（普通LRU）
+     */
+    private final AdmissionPolicy<K> admission;
+
+    /**
+     * 开启准入策略后，新元素先进入容量约1%的窗口LRU，从窗口淘汰时再与主区的淘汰者比较访问频率
+     */
+    private DNode<K, V> windowHead;
+
+    private DNode<K, V> windowTail;
+
+    /**
+     * 窗口LRU容量（权重）
+     */
+    private long windowMaxWeight;
+
+    /**
+     * 窗口LRU中元素的权重之和
+     */
+    private long windowWeight;
+
+    /**
+     * 写入后多久过期（纳秒），小于0表示不按写入时间过期
+     */
+    private long expireAfterWriteNanos = -1;
+
+    /**
+     * 最后一次访问后多久过期（纳秒），小于0表示不按访问时间过期
+     */
+    private long expireAfterAccessNanos = -1;
+
+    /**
+     * 时间源，默认System.nanoTime()，测试时可以换成可控的时钟
+     */
+    private LongSupplier ticker = System::nanoTime;
+
+    /**
+     * 管理过期时间的时间轮，没有设置过期时为null
+     */
+    private TimerWheel timerWheel;
+
+    /**
+     * 命中率统计，默认关闭
+     */
+    private StatsCounter stats = StatsCounter.disabled();
+
+    /**
+     * 元素离开缓存或value被覆盖时的回调，可以为null
+     */
+    private BiConsumer<? super K, ? super V> removalListener;
+
     /**
      * 双向链表
      */
-    static class DNode<K, V> {
+    static class DNode<K, V> extends TimerWheel.Node {
 
         private K key;
 
@@ -61,6 +146,21 @@ public class LRUBaseHashTable<K, V> {
          */
         private DNode<K, V> next;
 
+        /**
+         * 是否位于窗口LRU
+         */
+        private boolean window;
+
+        /**
+         * 写入时计算的权重
+         */
+        private int weight;
+
+        /**
+         * 最后一次写入的时间（纳秒）
+         */
+        private long writeTime;
+
         DNode() {
         }
 
@@ -72,8 +172,38 @@ public class LRUBaseHashTable<K, V> {
     }
 
     public LRUBaseHashTable(int capacity) {
+        this(capacity, (AdmissionPolicy<K>) null);
+    }
+
+    /**
+     * @param capacity  容量
+     * @param admission 准入策略，例如TinyLfuAdmission；为null时是普通LRU
+     */
+    public LRUBaseHashTable(int capacity, AdmissionPolicy<K> admission) {
+        this((long) capacity, null, admission);
+    }
+
+    /**
+     * @param maxWeight 所有元素权重之和的上限，例如按字节计算时的内存预算
+     * @param weigher   权重计算函数，为null时每个元素权重为1
+     */
+    public LRUBaseHashTable(long maxWeight, Weigher<? super K, ? super V> weigher) {
+        this(maxWeight, weigher, null);
+    }
+
+    /**
+     * @param maxWeight 所有元素权重之和的上限
+     * @param weigher   权重计算函数，为null时每个元素权重为1
+     * @param admission 准入策略，为null时是普通LRU
+     */
+    public LRUBaseHashTable(long maxWeight, Weigher<? super K, ? super V> weigher, AdmissionPolicy<K> admission) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("maxWeight < 0: " + maxWeight);
+        }
+        this.admission = admission;
+        this.weigher = weigher;
         this.length = 0;
-        this.capacity = capacity;
+        this.maxWeight = maxWeight;
 
         headNode = new DNode<>();
 
@@ -83,12 +213,161 @@ public class LRUBaseHashTable<K, V> {
         tailNode.prev = headNode;
 
         table = new HashMap<>();
+
+        if (admission != null) {
+            windowMaxWeight = Math.max(1, maxWeight / 100);
+            windowHead = new DNode<>();
+            windowTail = new DNode<>();
+            windowHead.next = windowTail;
+            windowTail.prev = windowHead;
+        }
     }
 
     public LRUBaseHashTable() {
         this(DEFAULT_CAPACITY);
     }
 
+    /**
+     * 元素写入（新增或更新）后经过duration过期，只能在缓存为空时设置
+     *
+     * @param duration
+     * @param unit
+     * @return this
+     */
+    public LRUBaseHashTable<K, V> expireAfterWrite(long duration, TimeUnit unit) {
+        checkEmpty();
+        expireAfterWriteNanos = checkDuration(duration, unit);
+        return this;
+    }
+
+    /**
+     * 元素最后一次写入或读取后经过duration过期，只能在缓存为空时设置
+     *
+     * @param duration
+     * @param unit
+     * @return this
+     */
+    public LRUBaseHashTable<K, V> expireAfterAccess(long duration, TimeUnit unit) {
+        checkEmpty();
+        expireAfterAccessNanos = checkDuration(duration, unit);
+        return this;
+    }
+
+    /**
+     * 设置时间源，只能在缓存为空时设置
+     *
+     * @param ticker 返回纳秒时间
+     * @return this
+     */
+    public LRUBaseHashTable<K, V> ticker(LongSupplier ticker) {
+        checkEmpty();
+        if (ticker == null) {
+            throw new IllegalArgumentException("ticker == null");
+        }
+        this.ticker = ticker;
+        return this;
+    }
+
+    /**
+     * 元素被淘汰、过期、删除，或者value被新值覆盖时回调，参数为key和离开缓存的value，
+     * 用于释放value占用的外部资源（例如堆外内存）。回调在修改缓存的线程中同步执行，回调里不能再修改本缓存
+     *
+     * @param listener 为null时取消回调
+     * @return this
+     */
+    public LRUBaseHashTable<K, V> removalListener(BiConsumer<? super K, ? super V> listener) {
+        this.removalListener = listener;
+        return this;
+    }
+
+    private void notifyRemoval(K key, V value) {
+        if (removalListener != null) {
+            removalListener.accept(key, value);
+        }
+    }
+
+    private void checkEmpty() {
+        if (length > 0) {
+            throw new IllegalStateException("缓存不为空时不能修改过期设置");
+        }
+        timerWheel = null;
+    }
+
+    private static long checkDuration(long duration, TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("duration < 0: " + duration);
+        }
+        return unit.toNanos(duration);
+    }
+
+    private boolean expires() {
+        return expireAfterWriteNanos >= 0 || expireAfterAccessNanos >= 0;
+    }
+
+    /**
+     * 读当前时间并推进时间轮，物理删除已过期的元素；没有设置过期时返回0
+     */
+    private long advanceTime() {
+        if (!expires()) {
+            return 0L;
+        }
+        long now = ticker.getAsLong();
+        if (timerWheel == null) {
+            timerWheel = new TimerWheel(now);
+        } else {
+            timerWheel.advance(now, this::expireNode);
+        }
+        return now;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void expireNode(TimerWheel.Node node) {
+        evictNode((DNode<K, V>) node);
+        stats.recordEviction();
+    }
+
+    /**
+     * 写入时两种过期时间都从现在开始计算
+     */
+    private void scheduleOnWrite(DNode<K, V> node, long now) {
+        node.writeTime = now;
+        long duration = expireAfterWriteNanos >= 0 ? expireAfterWriteNanos : expireAfterAccessNanos;
+        if (expireAfterAccessNanos >= 0 && expireAfterAccessNanos < duration) {
+            duration = expireAfterAccessNanos;
+        }
+        node.expireAt = now + duration;
+        timerWheel.schedule(node);
+    }
+
+    /**
+     * 读取时只顺延按访问时间计算的过期时间，但不能超过按写入时间计算的过期时间
+     */
+    private void scheduleOnAccess(DNode<K, V> node, long now) {
+        if (expireAfterAccessNanos < 0) {
+            return;
+        }
+        long expireAt = now + expireAfterAccessNanos;
+        if (expireAfterWriteNanos >= 0 && expireAt - (node.writeTime + expireAfterWriteNanos) > 0) {
+            expireAt = node.writeTime + expireAfterWriteNanos;
+        }
+        node.expireAt = expireAt;
+        timerWheel.schedule(node);
+    }
+
+    /**
+     * 元素是否已经过期，时间轮只保证稍晚一些物理删除，读取时以这里的判断为准
+     */
+    private boolean isExpired(DNode<K, V> node, long now) {
+        return timerWheel != null && node.expireAt - now <= 0;
+    }
+
+    /**
+     * 立即删除所有已过期的元素；读写时也会顺带删除，一般不需要手动调用
+     */
+    public void cleanUp() {
+        advanceTime();
+    }
+
     /**
      * 新增
      *
@@ -96,43 +375,162 @@ public class LRUBaseHashTable<K, V> {
      * @param value
      */
     public void add(K key, V value) {
+        if (admission != null) {
+            admission.record(key);
+        }
+        int weight = weigh(key, value);
+        long now = advanceTime();
         DNode<K, V> node = table.get(key);
         if (node == null) {
             DNode<K, V> newNode = new DNode<>(key, value);
+            newNode.weight = weight;
             table.put(key, newNode);
-            addNode(newNode);
-
-            if (++length > capacity) {
-                DNode<K, V> tail = popTail();
-                table.remove(tail.key);
-                length--;
+            length++;
+            weightedSize += weight;
+            if (timerWheel != null) {
+                scheduleOnWrite(newNode, now);
             }
+            if (admission != null) {
+                addToWindow(newNode);
+                return;
+            }
+            addNode(newNode);
         } else {
+            V old = node.value;
             node.value = value;
+            weightedSize += weight - node.weight;
+            if (node.window) {
+                windowWeight += weight - node.weight;
+            }
+            node.weight = weight;
+            if (timerWheel != null) {
+                scheduleOnWrite(node, now);
+            }
             moveToHead(node);
+            if (old != value) {
+                notifyRemoval(key, old);
+            }
+        }
+        evict();
+    }
+
+    private int weigh(K key, V value) {
+        if (weigher == null) {
+            return 1;
+        }
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight < 0: " + weight);
         }
+        return weight;
     }
 
     /**
-     * 将新节点加到头部
-     *
-     * @param newNode
+     * 超出容量时从尾部开始淘汰，直到权重之和不超过上限；主区淘汰空了才淘汰窗口
      */
-    private void addNode(DNode<K, V> newNode) {
-        newNode.next = headNode.next;
-        newNode.prev = headNode;
+    private void evict() {
+        while (weightedSize > maxWeight) {
+            if (!evictOldest()) {
+                return;
+            }
+        }
+    }
 
-        headNode.next.prev = newNode;
-        headNode.next = newNode;
+    /**
+     * 淘汰一个最久未访问的元素：先淘汰主区尾部，主区为空时淘汰窗口尾部。
+     * 外部资源（例如堆外内存）不足时，OffHeapLRUCache也会调用它腾出空间
+     *
+     * @return 缓存为空时返回false
+     */
+    boolean evictOldest() {
+        DNode<K, V> tail = tailNode.prev;
+        if (tail == headNode) {
+            if (admission == null || windowTail.prev == windowHead) {
+                return false;
+            }
+            tail = windowTail.prev;
+        }
+        evictNode(tail);
+        stats.recordEviction();
+        return true;
     }
 
     /**
-     * 弹出尾部数据节点
+     * 从链表和散列表中删除节点
+     *
+     * @param node
      */
-    private DNode<K, V> popTail() {
-        DNode<K, V> node = tailNode.prev;
+    private void evictNode(DNode<K, V> node) {
         removeNode(node);
-        return node;
+        if (timerWheel != null) {
+            timerWheel.deschedule(node);
+        }
+        table.remove(node.key);
+        length--;
+        weightedSize -= node.weight;
+        if (node.window) {
+            windowWeight -= node.weight;
+        }
+        notifyRemoval(node.key, node.value);
+    }
+
+    /**
+     * 新节点加入窗口LRU；窗口溢出时，窗口尾部的候选节点依次进入主区，
+     * 缓存已满则由准入策略决定淘汰候选节点还是主区尾部的节点。
+     * 一个较重的候选节点可能要淘汰多个主区节点才放得下，每个淘汰者都要先输给候选节点
+     *
+     * @param newNode
+     */
+    private void addToWindow(DNode<K, V> newNode) {
+        newNode.window = true;
+        addNode(windowHead, newNode);
+        windowWeight += newNode.weight;
+        while (windowWeight > windowMaxWeight && windowTail.prev != windowHead) {
+            DNode<K, V> candidate = windowTail.prev;
+            removeNode(candidate);
+            windowWeight -= candidate.weight;
+            candidate.window = false;
+            boolean admitted = true;
+            while (weightedSize > maxWeight) {
+                DNode<K, V> victim = tailNode.prev;
+                if (victim == headNode || !admission.admit(candidate.key, victim.key)) {
+                    admitted = false;
+                    break;
+                }
+                evictNode(victim);
+                stats.recordEviction();
+            }
+            if (admitted) {
+                addNode(candidate);
+            } else {
+                if (timerWheel != null) {
+                    timerWheel.deschedule(candidate);
+                }
+                table.remove(candidate.key);
+                stats.recordEviction();
+                length--;
+                weightedSize -= candidate.weight;
+                notifyRemoval(candidate.key, candidate.value);
+            }
+        }
+        evict();
+    }
+
+    /**
+     * 将新节点加到头部
+     *
+     * @param newNode
+     */
+    private void addNode(DNode<K, V> newNode) {
+        addNode(headNode, newNode);
+    }
+
+    private void addNode(DNode<K, V> head, DNode<K, V> newNode) {
+        newNode.next = head.next;
+        newNode.prev = head;
+
+        head.next.prev = newNode;
+        head.next = newNode;
     }
 
     /**
@@ -152,20 +550,35 @@ public class LRUBaseHashTable<K, V> {
      */
     private void moveToHead(DNode<K, V> node) {
         removeNode(node);
-        addNode(node);
+        addNode(node.window ? windowHead : headNode, node);
     }
 
     /**
-     * 获取节点数据
+     * 获取节点数据，已过期的元素即使还没被时间轮删除也按未命中处理
      *
      * @param key
      * @return
      */
     public V get(K key) {
+        if (admission != null) {
+            admission.record(key);
+        }
+        long now = advanceTime();
         DNode<K, V> node = table.get(key);
         if (node == null) {
+            stats.recordMisses(1);
+            return null;
+        }
+        if (isExpired(node, now)) {
+            evictNode(node);
+            stats.recordEviction();
+            stats.recordMisses(1);
             return null;
         }
+        stats.recordHits(1);
+        if (timerWheel != null) {
+            scheduleOnAccess(node, now);
+        }
         moveToHead(node);
         return node.value;
     }
@@ -180,9 +593,212 @@ public class LRUBaseHashTable<K, V> {
         if (node == null) {
             return;
         }
-        removeNode(node);
-        length--;
-        table.remove(node.key);
+        evictNode(node);
+    }
+
+    /**
+     * 缓存的元素个数，可能包含已过期但还没被删除的元素
+     *
+     * @return
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * 开启命中率统计，已开启时清零重新统计
+     */
+    public void enableStats() {
+        stats = new StatsCounter();
+    }
+
+    /**
+     * 关闭命中率统计
+     */
+    public void disableStats() {
+        stats = StatsCounter.disabled();
+    }
+
+    /**
+     * 获取统计快照，未开启时各项均为0
+     *
+     * @return
+     */
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * 所有元素的权重之和
+     *
+     * @return
+     */
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    /**
+     * 使用指定的计数器统计，ConcurrentLRUBaseHashTable让所有分段共用一个计数器
+     */
+    void recordStats(StatsCounter stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * 快照中key、value的编解码方式
+     */
+    public interface Codec<T> {
+        void write(DataOutput out, T value) throws IOException;
+
+        T read(DataInput in) throws IOException;
+    }
+
+    /**
+     * 按从最久到最近的访问顺序写出快照：魔数、是否包含value、元素数量，之后依次是每个元素的key（和value）。
+     * 开启准入策略时先写主区再写窗口，窗口里是最近才进入缓存的元素。
+     * 已过期但时间轮还没来得及删除的元素不写出，否则恢复时会被当成新写入的元素复活。不关闭out
+     *
+     * @param out
+     * @param keyCodec
+     * @param valueCodec 为null时只写key，恢复时再用loader加载value
+     * @throws IOException
+     */
+    public void writeSnapshot(OutputStream out, Codec<? super K> keyCodec, Codec<? super V> valueCodec)
+            throws IOException {
+        long now = advanceTime();
+        int count = countLive(headNode, tailNode, now);
+        if (admission != null) {
+            count += countLive(windowHead, windowTail, now);
+        }
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(SNAPSHOT_MAGIC);
+        data.writeBoolean(valueCodec != null);
+        data.writeInt(count);
+        int written = writeNodes(data, headNode, tailNode, now, keyCodec, valueCodec);
+        if (admission != null) {
+            written += writeNodes(data, windowHead, windowTail, now, keyCodec, valueCodec);
+        }
+        if (written != count) {
+            throw new IllegalStateException("写快照期间缓存被修改");
+        }
+        data.flush();
+    }
+
+    /**
+     * 一条链表中未过期的元素个数
+     */
+    private int countLive(DNode<K, V> head, DNode<K, V> tail, long now) {
+        int count = 0;
+        for (DNode<K, V> node = tail.prev; node != head; node = node.prev) {
+            if (!isExpired(node, now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 从尾部向头部写出一条链表中未过期的元素
+     */
+    private int writeNodes(DataOutputStream data, DNode<K, V> head, DNode<K, V> tail, long now,
+                           Codec<? super K> keyCodec, Codec<? super V> valueCodec) throws IOException {
+        int count = 0;
+        for (DNode<K, V> node = tail.prev; node != head; node = node.prev) {
+            if (isExpired(node, now)) {
+                continue;
+            }
+            keyCodec.write(data, node.key);
+            if (valueCodec != null) {
+                valueCodec.write(data, node.value);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 把快照写到file：先写同目录下的临时文件，刷到磁盘后再改名覆盖，
+     * 中途崩溃也不会留下写了一半的快照
+     *
+     * @param file
+     * @param keyCodec
+     * @param valueCodec 为null时只写key
+     * @throws IOException
+     */
+    public void saveSnapshot(Path file, Codec<? super K> keyCodec, Codec<? super V> valueCodec)
+            throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(tmp.toFile())) {
+                writeSnapshot(out, keyCodec, valueCodec);
+                out.getFD().sync();
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * 按快照中的顺序（从最久到最近）把元素依次加入缓存，恢复后的访问顺序与写快照时相同。
+     * 恢复的元素按刚写入处理，过期时间从现在开始计算。不关闭in
+     *
+     * @param in
+     * @param keyCodec
+     * @param valueCodec 快照包含value时使用
+     * @param loader     快照只有key时用来加载value，返回null的key跳过；快照包含value时可以为null
+     * @return 加入缓存的元素个数
+     * @throws IOException
+     */
+    public int readSnapshot(InputStream in, Codec<? extends K> keyCodec, Codec<? extends V> valueCodec,
+                            Function<? super K, ? extends V> loader) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("不是有效的LRU快照：魔数不匹配");
+        }
+        boolean hasValues = data.readBoolean();
+        int count = data.readInt();
+        if (count < 0) {
+            throw new IOException("不是有效的LRU快照：元素数量 " + count);
+        }
+        if (hasValues ? valueCodec == null : loader == null) {
+            throw new IllegalArgumentException(hasValues ? "快照包含value，需要valueCodec" : "快照只有key，需要loader");
+        }
+        int added = 0;
+        for (int i = 0; i < count; i++) {
+            K key = keyCodec.read(data);
+            V value = hasValues ? valueCodec.read(data) : loader.apply(key);
+            if (value != null) {
+                add(key, value);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * 从saveSnapshot写出的文件恢复，文件不存在时返回0
+     *
+     * @param file
+     * @param keyCodec
+     * @param valueCodec
+     * @param loader
+     * @return 加入缓存的元素个数
+     * @throws IOException
+     */
+    public int loadSnapshot(Path file, Codec<? extends K> keyCodec, Codec<? extends V> valueCodec,
+                            Function<? super K, ? extends V> loader) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return readSnapshot(in, keyCodec, valueCodec, loader);
+        }
     }
 
     private void printAll() {
@@ -0,0 +1,338 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * @Description:自动加载的并发LRU缓存
+ * <p>
+ * 热点key未命中时，如果每个线程都自己去后端加载，同一时刻会有大量重复请求打到后端。
+ * get(key, loader)保证同一个key同时只有一次加载在进行：第一个未命中的线程负责加载，
+ * 其他线程等待同一个CompletableFuture，加载完成后一起拿到结果。
+ * <p>
+ * 元素写入后超过expireAfterWrite过期，由底层ConcurrentLRUBaseHashTable的时间轮删除，按未命中重新加载；
+ * 超过refreshAfterWrite（但还没过期）时先返回旧值，同时在executor里异步刷新，
+ * 刷新同样和其他加载合并，刷新失败时保留旧值。
+ * put、invalidate会让正在进行的加载作废，加载结果只返回给等待它的调用方，不再写入缓存，
+ * 避免旧的加载结果覆盖新值或者复活已删除的key。loader里再次加载同一个key会抛出IllegalStateException。
+ * 存储基于ConcurrentLRUBaseHashTable，loader返回null时不缓存。
+ * 开启统计后记录命中、未命中和每次加载（包括异步刷新）的耗时，淘汰数来自底层的ConcurrentLRUBaseHashTable。
+ * @Date: Create in 2026-10-17
+ */
+public class LoadingLRUCache<K, V> {
+
+    private final ConcurrentLRUBaseHashTable<K, Timestamped<V>> cache;
+
+    /**
+     * 正在加载的key，put、invalidate会移除登记，被移除的加载完成后不写缓存
+     */
+    private final ConcurrentHashMap<K, Loading<V>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * 写入后多久异步刷新（纳秒），小于0表示不刷新
+     */
+    private final long refreshAfterWriteNanos;
+
+    private final Executor executor;
+
+    private final LongSupplier ticker;
+
+    /**
+     * 命中率和加载耗时统计，默认关闭
+     */
+    private volatile StatsCounter stats = StatsCounter.disabled();
+
+    /**
+     * 缓存的值和写入时间，写入时间只用于判断是否需要刷新，过期由底层缓存负责
+     */
+    static final class Timestamped<V> {
+
+        final V value;
+
+        final long writeTime;
+
+        Timestamped(V value, long writeTime) {
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+    }
+
+    /**
+     * 一次正在进行的加载
+     */
+    static final class Loading<V> {
+
+        final CompletableFuture<V> future = new CompletableFuture<>();
+
+        /**
+         * 执行loader的线程，用于发现loader里又加载同一个key
+         */
+        volatile Thread owner;
+    }
+
+    public LoadingLRUCache(int capacity) {
+        this(capacity, -1, -1, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param capacity          容量
+     * @param expireAfterWrite  写入后多久过期，小于0表示不过期
+     * @param refreshAfterWrite 写入后多久异步刷新，小于0表示不刷新，一般小于expireAfterWrite
+     * @param unit
+     */
+    public LoadingLRUCache(int capacity, long expireAfterWrite, long refreshAfterWrite, TimeUnit unit) {
+        this(capacity, expireAfterWrite, refreshAfterWrite, unit, ForkJoinPool.commonPool(), System::nanoTime);
+    }
+
+    /**
+     * @param capacity          容量
+     * @param expireAfterWrite  写入后多久过期，小于0表示不过期
+     * @param refreshAfterWrite 写入后多久异步刷新，小于0表示不刷新
+     * @param unit
+     * @param executor          执行异步刷新
+     * @param ticker            时间源，返回纳秒时间
+     */
+    public LoadingLRUCache(int capacity, long expireAfterWrite, long refreshAfterWrite, TimeUnit unit,
+                           Executor executor, LongSupplier ticker) {
+        if (executor == null || ticker == null) {
+            throw new IllegalArgumentException("executor=" + executor + ", ticker=" + ticker);
+        }
+        this.cache = new ConcurrentLRUBaseHashTable<K, Timestamped<V>>(capacity).ticker(ticker);
+        if (expireAfterWrite >= 0) {
+            cache.expireAfterWrite(expireAfterWrite, unit);
+        }
+        this.refreshAfterWriteNanos = refreshAfterWrite < 0 ? -1 : unit.toNanos(refreshAfterWrite);
+        this.executor = executor;
+        this.ticker = ticker;
+    }
+
+    /**
+     * 获取，未命中或已过期时用loader加载，同一个key的并发加载会合并成一次
+     *
+     * @param key
+     * @param loader 加载函数，抛出的异常会原样抛给所有等待这次加载的调用方
+     * @return loader返回null时返回null
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Timestamped<V> entry = cache.get(key);
+        if (entry != null) {
+            stats.recordHits(1);
+            if (refreshAfterWriteNanos >= 0 && ticker.getAsLong() - entry.writeTime >= refreshAfterWriteNanos) {
+                refreshAsync(key, loader);
+            }
+            return entry.value;
+        }
+        stats.recordMisses(1);
+
+        Loading<V> self = new Loading<>();
+        self.owner = Thread.currentThread();
+        Loading<V> running = loading.putIfAbsent(key, self);
+        if (running != null) {
+            if (running.owner == Thread.currentThread()) {
+                // 当前线程正在加载这个key，等待自己只会死锁
+                throw new IllegalStateException("Recursive load: " + key);
+            }
+            return join(running.future);
+        }
+        try {
+            // 未命中到登记加载之间，可能有别的线程刚加载完
+            entry = cache.get(key);
+            if (entry != null) {
+                self.future.complete(entry.value);
+                return entry.value;
+            }
+            V value = load(key, loader, self);
+            self.future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            self.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            self.owner = null;
+            loading.remove(key, self);
+        }
+    }
+
+    /**
+     * 只查缓存，不加载
+     *
+     * @param key
+     * @return 不存在或已过期时返回null
+     */
+    public V getIfPresent(K key) {
+        Timestamped<V> entry = cache.get(key);
+        if (entry == null) {
+            stats.recordMisses(1);
+            return null;
+        }
+        stats.recordHits(1);
+        return entry.value;
+    }
+
+    /**
+     * 直接写入
+     *
+     * @param key
+     * @param value
+     */
+    public void put(K key, V value) {
+        loading.compute(key, (k, running) -> {
+            cache.add(key, new Timestamped<>(value, ticker.getAsLong()));
+            return null;
+        });
+    }
+
+    /**
+     * 删除，正在进行的加载完成后也不会再写入缓存
+     *
+     * @param key
+     */
+    public void invalidate(K key) {
+        loading.compute(key, (k, running) -> {
+            cache.remove(key);
+            return null;
+        });
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * 开启统计，已开启时清零重新统计
+     */
+    public void enableStats() {
+        stats = new StatsCounter();
+        cache.enableStats();
+    }
+
+    /**
+     * 关闭统计
+     */
+    public void disableStats() {
+        stats = StatsCounter.disabled();
+        cache.disableStats();
+    }
+
+    /**
+     * 获取统计快照：命中、未命中和加载数据来自本层，淘汰数来自底层缓存
+     *
+     * @return
+     */
+    public CacheStats stats() {
+        CacheStats own = stats.snapshot();
+        return new CacheStats(own.hitCount(), own.missCount(), cache.stats().evictionCount(),
+                own.loadSuccessCount(), own.loadFailureCount(), own.totalLoadTime());
+    }
+
+    /**
+     * 如果这个key没有正在进行的加载，就提交一次异步刷新
+     */
+    private void refreshAsync(K key, Function<? super K, ? extends V> loader) {
+        Loading<V> self = new Loading<>();
+        if (loading.putIfAbsent(key, self) != null) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                self.owner = Thread.currentThread();
+                try {
+                    self.future.complete(load(key, loader, self));
+                } catch (Throwable e) {
+                    // 刷新失败时保留旧值，等过期后再由get同步加载
+                    self.future.completeExceptionally(e);
+                } finally {
+                    self.owner = null;
+                    loading.remove(key, self);
+                }
+            });
+        } catch (RuntimeException e) {
+            // 线程池拒绝时放弃这次刷新
+            loading.remove(key, self);
+            self.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 执行loader，只有self仍然登记在loading中（期间没有put、invalidate）时才写入缓存，
+     * 写缓存和移除登记在同一次compute里完成，之后到来的线程一定能在缓存里看到结果
+     */
+    private V load(K key, Function<? super K, ? extends V> loader, Loading<V> self) {
+        long start = System.nanoTime();
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (Throwable e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+        stats.recordLoadSuccess(System.nanoTime() - start);
+        loading.computeIfPresent(key, (k, running) -> {
+            if (running != self) {
+                return running;
+            }
+            if (value == null) {
+                cache.remove(key);
+            } else {
+                cache.add(key, new Timestamped<>(value, ticker.getAsLong()));
+            }
+            return null;
+        });
+        return value;
+    }
+
+    /**
+     * 等待其他线程的加载结果，加载异常原样抛出
+     */
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadingLRUCache<String, String> cache = new LoadingLRUCache<>(100);
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, String> slowLoader = key -> {
+            loads.incrementAndGet();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return key.toUpperCase();
+        };
+
+        int threads = 32;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                cache.get("hot", slowLoader);
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        System.out.println(threads + " threads, loads = " + loads.get() + ", value = " + cache.getIfPresent("hot"));
+
+        cache.enableStats();
+        for (int i = 0; i < 10; i++) {
+            cache.get("key" + (i % 3), String::toUpperCase);
+        }
+        System.out.println(cache.stats());
+    }
+}
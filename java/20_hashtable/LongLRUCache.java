@@ -0,0 +1,347 @@
+/**
+ * @Description:long键值的LRU缓存，不装箱、不分配节点对象
+ * <p>
+ * LRUBaseHashTable每个元素都有一个DNode、一个HashMap.Entry和装箱后的key，大约100字节。
+ * 这里所有数据都放在预先分配好的基本类型数组里，每个元素占用一个槽位：
+ * keys/values存键值，prev/next存访问顺序双向链表的前驱和后继槽位，一共24字节；
+ * 另外用开放寻址的index数组（线性探测）从key找到槽位，平均每个元素再多5~10字节。
+ * put/get/remove都是O(1)，稳定运行后不产生任何垃圾。
+ * <p>
+ * 任何long都可以作为key；get查找不到时返回构造时指定的noValue。非线程安全。
+ * @Date: Create in 2026-10-17
+ */
+public class LongLRUCache {
+
+    /**
+     * 默认容量
+     */
+    private static final int DEFAULT_CAPACITY = 10;
+
+    /**
+     * index的装载因子
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * 空指针
+     */
+    private static final int NIL = -1;
+
+    /**
+     * index中的空槽
+     */
+    private static final int FREE = 0;
+
+    private final long[] keys;
+
+    private final long[] values;
+
+    /**
+     * prev[i]、next[i]为槽位i在访问顺序链表中的前驱和后继槽位；空闲槽位用next串成空闲链表
+     */
+    private final int[] prev;
+
+    private final int[] next;
+
+    /**
+     * 散列索引，存放“槽位 + 1”，0表示空
+     */
+    private final int[] index;
+
+    private final int mask;
+
+    private final int capacity;
+
+    private final long noValue;
+
+    private int size;
+
+    /**
+     * 从未使用过的槽位从used开始
+     */
+    private int used;
+
+    /**
+     * 被remove释放的槽位
+     */
+    private int freeHead = NIL;
+
+    /**
+     * 最近访问的槽位
+     */
+    private int head = NIL;
+
+    /**
+     * 最久未访问的槽位
+     */
+    private int tail = NIL;
+
+    /**
+     * 命中率统计，默认关闭
+     */
+    private StatsCounter stats = StatsCounter.disabled();
+
+    public LongLRUCache() {
+        this(DEFAULT_CAPACITY, 0);
+    }
+
+    public LongLRUCache(int capacity) {
+        this(capacity, 0);
+    }
+
+    /**
+     * @param capacity 最多缓存的元素个数
+     * @param noValue  查找不到时get返回的值
+     */
+    public LongLRUCache(int capacity, long noValue) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity <= 0: " + capacity);
+        }
+        int indexLength = tableSizeFor((int) Math.min(Math.ceil(capacity / LOAD_FACTOR), 1 << 30));
+        this.capacity = capacity;
+        this.noValue = noValue;
+        keys = new long[capacity];
+        values = new long[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        index = new int[indexLength];
+        mask = indexLength - 1;
+    }
+
+    /**
+     * 新增或更新，并移到头部；已满时复用最久未访问元素的槽位
+     *
+     * @param key
+     * @param value
+     */
+    public void put(long key, long value) {
+        int slot = find(key);
+        if (slot != NIL) {
+            values[slot] = value;
+            moveToHead(slot);
+            return;
+        }
+        if (freeHead != NIL) {
+            slot = freeHead;
+            freeHead = next[slot];
+        } else if (used < capacity) {
+            slot = used++;
+        } else {
+            slot = tail;
+            unlink(slot);
+            removeIndex(keys[slot]);
+            size--;
+            stats.recordEviction();
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        addIndex(key, slot);
+        linkFirst(slot);
+        size++;
+    }
+
+    /**
+     * 获取，命中时移到头部
+     *
+     * @param key
+     * @return 不存在时返回noValue
+     */
+    public long get(long key) {
+        int slot = find(key);
+        if (slot == NIL) {
+            stats.recordMisses(1);
+            return noValue;
+        }
+        stats.recordHits(1);
+        moveToHead(slot);
+        return values[slot];
+    }
+
+    /**
+     * 是否存在，不改变访问顺序
+     *
+     * @param key
+     * @return
+     */
+    public boolean containsKey(long key) {
+        return find(key) != NIL;
+    }
+
+    /**
+     * 删除
+     *
+     * @param key
+     */
+    public void remove(long key) {
+        int slot = removeIndex(key);
+        if (slot == NIL) {
+            return;
+        }
+        unlink(slot);
+        next[slot] = freeHead;
+        freeHead = slot;
+        size--;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 开启命中率统计，已开启时清零重新统计
+     */
+    public void enableStats() {
+        stats = new StatsCounter();
+    }
+
+    /**
+     * 关闭命中率统计
+     */
+    public void disableStats() {
+        stats = StatsCounter.disabled();
+    }
+
+    /**
+     * 获取统计快照，未开启时各项均为0
+     *
+     * @return
+     */
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * 查找key所在的槽位
+     */
+    private int find(long key) {
+        int i = hash(key);
+        int e;
+        while ((e = index[i]) != FREE) {
+            if (keys[e - 1] == key) {
+                return e - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        return NIL;
+    }
+
+    /**
+     * 登记一个不存在的key，index长度大于capacity，总能找到空位
+     */
+    private void addIndex(long key, int slot) {
+        int i = hash(key);
+        while (index[i] != FREE) {
+            i = (i + 1) & mask;
+        }
+        index[i] = slot + 1;
+    }
+
+    /**
+     * 从index中删除key，和LongHashTable一样采用后移删除
+     *
+     * @return key原来所在的槽位，不存在时返回NIL
+     */
+    private int removeIndex(long key) {
+        int i = hash(key);
+        int e;
+        while (true) {
+            e = index[i];
+            if (e == FREE) {
+                return NIL;
+            }
+            if (keys[e - 1] == key) {
+                break;
+            }
+            i = (i + 1) & mask;
+        }
+        int gap = i;
+        i = (i + 1) & mask;
+        int moved;
+        while ((moved = index[i]) != FREE) {
+            int home = hash(keys[moved - 1]);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                index[gap] = moved;
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        index[gap] = FREE;
+        return e - 1;
+    }
+
+    private void moveToHead(int slot) {
+        if (slot != head) {
+            unlink(slot);
+            linkFirst(slot);
+        }
+    }
+
+    private void linkFirst(int slot) {
+        prev[slot] = NIL;
+        next[slot] = head;
+        if (head != NIL) {
+            prev[head] = slot;
+        } else {
+            tail = slot;
+        }
+        head = slot;
+    }
+
+    private void unlink(int slot) {
+        int p = prev[slot];
+        int n = next[slot];
+        if (p != NIL) {
+            next[p] = n;
+        } else {
+            head = n;
+        }
+        if (n != NIL) {
+            prev[n] = p;
+        } else {
+            tail = p;
+        }
+    }
+
+    /**
+     * 与LongHashTable相同的散列函数
+     */
+    private int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int tableSizeFor(int cap) {
+        int n = Integer.highestOneBit(Math.max(cap - 1, 1)) << 1;
+        return n < 0 ? 1 << 30 : n;
+    }
+
+    /**
+     * 按从最近到最久的访问顺序输出
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = head; i != NIL; i = next[i]) {
+            sb.append(keys[i]).append('=').append(values[i]).append(' ');
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) {
+        LongLRUCache cache = new LongLRUCache(3, -1);
+        cache.put(1, 100);
+        cache.put(2, 200);
+        cache.put(3, 300);
+        System.out.println(cache);
+        cache.get(1);
+        cache.put(4, 400);
+        System.out.println(cache);
+        cache.remove(3);
+        cache.put(5, 500);
+        System.out.println(cache + " get(2)=" + cache.get(2));
+    }
+}
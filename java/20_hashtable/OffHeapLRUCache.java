@@ -0,0 +1,157 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * @Description:value存放在堆外内存的LRU缓存
+ * <p>
+ * 大的value放在Java堆上会拉长GC停顿。这里value用Codec序列化后写进SlabAllocator管理的堆外slab，
+ * 堆上只留下LRUBaseHashTable的索引节点和一个记录地址、长度的Ref（几十字节），与value大小无关。
+ * <p>
+ * 容量是堆外内存的字节数：每个元素的权重是它实际占用的槽位大小，LRUBaseHashTable按权重淘汰；
+ * 元素被淘汰、删除或覆盖时通过removalListener立即释放槽位。
+ * 不同大小级别的slab之间可能有碎片，分配失败时继续淘汰最久未访问的元素，直到分配成功。
+ * 单个value序列化后不能超过SlabAllocator.SLAB_SIZE。非线程安全。
+ * @Date: Create in 2026-10-17
+ */
+public class OffHeapLRUCache<K, V> {
+
+    private final LRUBaseHashTable<K, Ref> table;
+
+    private final SlabAllocator allocator;
+
+    private final LRUBaseHashTable.Codec<V> codec;
+
+    /**
+     * 堆外数据的位置
+     */
+    static final class Ref {
+
+        final long address;
+
+        final int length;
+
+        Ref(long address, int length) {
+            this.address = address;
+            this.length = length;
+        }
+    }
+
+    /**
+     * @param maxBytes 堆外内存上限（字节）
+     * @param codec    value的序列化方式
+     */
+    public OffHeapLRUCache(long maxBytes, LRUBaseHashTable.Codec<V> codec) {
+        this.allocator = new SlabAllocator(maxBytes);
+        this.codec = codec;
+        this.table = new LRUBaseHashTable<K, Ref>(allocator.maxBytes(),
+                (key, ref) -> SlabAllocator.slotSize(ref.length));
+        this.table.removalListener((key, ref) -> allocator.free(ref.address));
+    }
+
+    /**
+     * 新增
+     *
+     * @param key
+     * @param value
+     */
+    public void add(K key, V value) {
+        byte[] bytes = encode(value);
+        if (bytes.length > SlabAllocator.SLAB_SIZE) {
+            throw new IllegalArgumentException("value过大: " + bytes.length);
+        }
+        long address = allocator.allocate(bytes.length);
+        while (address == SlabAllocator.NO_SPACE) {
+            if (!table.evictOldest()) {
+                throw new IllegalStateException("堆外内存不足: " + bytes.length);
+            }
+            address = allocator.allocate(bytes.length);
+        }
+        allocator.write(address, bytes);
+        table.add(key, new Ref(address, bytes.length));
+    }
+
+    /**
+     * 获取，每次都从堆外反序列化出一个新的value
+     *
+     * @param key
+     * @return
+     */
+    public V get(K key) {
+        Ref ref = table.get(key);
+        if (ref == null) {
+            return null;
+        }
+        return decode(allocator.read(ref.address, ref.length));
+    }
+
+    /**
+     * 移除
+     *
+     * @param key
+     */
+    public void remove(K key) {
+        table.remove(key);
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * 元素占用的堆外字节数（按槽位大小计算）
+     *
+     * @return
+     */
+    public long usedBytes() {
+        return allocator.usedBytes();
+    }
+
+    private byte[] encode(V value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            DataOutputStream out = new DataOutputStream(bytes);
+            codec.write(out, value);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private V decode(byte[] bytes) {
+        try {
+            return codec.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void main(String[] args) {
+        LRUBaseHashTable.Codec<byte[]> codec = new LRUBaseHashTable.Codec<byte[]>() {
+            @Override
+            public void write(DataOutput out, byte[] value) throws IOException {
+                out.writeInt(value.length);
+                out.write(value);
+            }
+
+            @Override
+            public byte[] read(DataInput in) throws IOException {
+                byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                return value;
+            }
+        };
+        OffHeapLRUCache<Integer, byte[]> cache = new OffHeapLRUCache<>(4L << 20, codec);
+        for (int i = 0; i < 1000; i++) {
+            cache.add(i, new byte[1000 + i * 100]);
+        }
+        System.out.println("size = " + cache.size() + ", used = " + cache.usedBytes()
+                + ", last = " + cache.get(999).length);
+    }
+}
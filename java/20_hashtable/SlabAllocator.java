@@ -0,0 +1,263 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * @Description:堆外内存的slab分配器
+ * <p>
+ * 堆外内存按SLAB_SIZE（1MB）一块申请（ByteBuffer.allocateDirect），总块数不超过构造时给定的上限。
+ * 每块slab在使用时属于一个大小级别（64B、128B……1MB，都是2的幂），被切成等长的槽位，
+ * 分配时按请求长度向上取到最近的级别，从该级别还有空闲槽位的slab中取一个。
+ * 一块slab的槽位全部释放后归还给公共池，可以再分给其他级别，value大小分布变化时不会一直卡在旧的级别上。
+ * <p>
+ * 分配结果是一个long地址：高位是slab编号，低20位是块内偏移。槽位内部的碎片最多接近一半，用空间换O(1)的分配和释放。
+ * 非线程安全。
+ * @Date: Create in 2026-10-17
+ */
+public class SlabAllocator {
+
+    private static final int SLAB_SHIFT = 20;
+
+    /**
+     * 每块slab的大小，也是能分配的最大长度
+     */
+    public static final int SLAB_SIZE = 1 << SLAB_SHIFT;
+
+    /**
+     * 最小的级别为64字节
+     */
+    private static final int MIN_SHIFT = 6;
+
+    private static final int CLASS_COUNT = SLAB_SHIFT - MIN_SHIFT + 1;
+
+    /**
+     * 分配失败时返回的地址
+     */
+    public static final long NO_SPACE = -1L;
+
+    private final Slab[] slabs;
+
+    /**
+     * 已经申请过内存的slab数量
+     */
+    private int slabCount;
+
+    /**
+     * 槽位全部空闲、可以分给任意级别的slab
+     */
+    private final ArrayDeque<Slab> emptySlabs = new ArrayDeque<>();
+
+    /**
+     * 每个级别中还有空闲槽位的slab，用Slab.prev/next串成双向链表，这里存链表头，
+     * 整块释放时可以O(1)地从链表中摘除
+     */
+    private final Slab[] partialSlabs = new Slab[CLASS_COUNT];
+
+    /**
+     * 已分配出去的槽位总字节数
+     */
+    private long usedBytes;
+
+    private static final class Slab {
+
+        final int index;
+
+        final ByteBuffer buffer;
+
+        /**
+         * 所属级别，-1表示未分配给任何级别
+         */
+        int sizeClass = -1;
+
+        int slotSize;
+
+        int slotCount;
+
+        /**
+         * 空闲槽位编号的栈
+         */
+        int[] freeSlots;
+
+        int freeCount;
+
+        /**
+         * 所属级别的partial链表中的前后节点
+         */
+        Slab prev;
+
+        Slab next;
+
+        Slab(int index) {
+            this.index = index;
+            this.buffer = ByteBuffer.allocateDirect(SLAB_SIZE);
+        }
+    }
+
+    /**
+     * @param maxBytes 最多申请的堆外内存，向下取整为SLAB_SIZE的倍数，至少一块
+     */
+    public SlabAllocator(long maxBytes) {
+        long count = Math.max(1, maxBytes >>> SLAB_SHIFT);
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxBytes过大: " + maxBytes);
+        }
+        slabs = new Slab[(int) count];
+    }
+
+    /**
+     * 长度为length的数据实际占用的槽位大小
+     *
+     * @param length
+     * @return 超过SLAB_SIZE时返回-1
+     */
+    public static int slotSize(int length) {
+        if (length < 0 || length > SLAB_SIZE) {
+            return -1;
+        }
+        return 1 << (sizeClass(length) + MIN_SHIFT);
+    }
+
+    /**
+     * 分配一个能放下length字节的槽位
+     *
+     * @param length
+     * @return 槽位地址，内存不足时返回NO_SPACE
+     */
+    public long allocate(int length) {
+        if (length < 0 || length > SLAB_SIZE) {
+            throw new IllegalArgumentException("length超出范围: " + length);
+        }
+        int cls = sizeClass(length);
+        Slab slab = partialSlabs[cls];
+        if (slab == null) {
+            slab = takeEmptySlab();
+            if (slab == null) {
+                return NO_SPACE;
+            }
+            assign(slab, cls);
+            linkPartial(slab);
+        }
+        int slot = slab.freeSlots[--slab.freeCount];
+        if (slab.freeCount == 0) {
+            unlinkPartial(slab);
+        }
+        usedBytes += slab.slotSize;
+        return ((long) slab.index << SLAB_SHIFT) | ((long) slot * slab.slotSize);
+    }
+
+    /**
+     * 释放allocate返回的槽位
+     *
+     * @param address
+     */
+    public void free(long address) {
+        Slab slab = slabs[(int) (address >>> SLAB_SHIFT)];
+        int offset = (int) (address & (SLAB_SIZE - 1));
+        if (slab.freeCount == 0) {
+            linkPartial(slab);
+        }
+        slab.freeSlots[slab.freeCount++] = offset / slab.slotSize;
+        usedBytes -= slab.slotSize;
+        if (slab.freeCount == slab.slotCount) {
+            // 整块空闲，归还公共池
+            unlinkPartial(slab);
+            slab.sizeClass = -1;
+            slab.freeSlots = null;
+            emptySlabs.addLast(slab);
+        }
+    }
+
+    /**
+     * 把src写到address处的槽位
+     */
+    public void write(long address, byte[] src) {
+        ByteBuffer buffer = slabs[(int) (address >>> SLAB_SHIFT)].buffer.duplicate();
+        buffer.position((int) (address & (SLAB_SIZE - 1)));
+        buffer.put(src);
+    }
+
+    /**
+     * 从address处的槽位读出length字节
+     */
+    public byte[] read(long address, int length) {
+        ByteBuffer buffer = slabs[(int) (address >>> SLAB_SHIFT)].buffer.duplicate();
+        buffer.position((int) (address & (SLAB_SIZE - 1)));
+        byte[] dst = new byte[length];
+        buffer.get(dst);
+        return dst;
+    }
+
+    /**
+     * 已分配出去的槽位总字节数
+     */
+    public long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * 最多可以申请的堆外内存字节数
+     */
+    public long maxBytes() {
+        return (long) slabs.length << SLAB_SHIFT;
+    }
+
+    /**
+     * 已经申请的堆外内存字节数
+     */
+    public long reservedBytes() {
+        return (long) slabCount << SLAB_SHIFT;
+    }
+
+    private Slab takeEmptySlab() {
+        Slab slab = emptySlabs.pollFirst();
+        if (slab == null && slabCount < slabs.length) {
+            slab = new Slab(slabCount);
+            slabs[slabCount++] = slab;
+        }
+        return slab;
+    }
+
+    /**
+     * 把slab插到所属级别partial链表的头部
+     */
+    private void linkPartial(Slab slab) {
+        Slab head = partialSlabs[slab.sizeClass];
+        slab.prev = null;
+        slab.next = head;
+        if (head != null) {
+            head.prev = slab;
+        }
+        partialSlabs[slab.sizeClass] = slab;
+    }
+
+    private void unlinkPartial(Slab slab) {
+        if (slab.prev == null) {
+            partialSlabs[slab.sizeClass] = slab.next;
+        } else {
+            slab.prev.next = slab.next;
+        }
+        if (slab.next != null) {
+            slab.next.prev = slab.prev;
+        }
+        slab.prev = null;
+        slab.next = null;
+    }
+
+    private static void assign(Slab slab, int cls) {
+        slab.sizeClass = cls;
+        slab.slotSize = 1 << (cls + MIN_SHIFT);
+        slab.slotCount = SLAB_SIZE / slab.slotSize;
+        slab.freeSlots = new int[slab.slotCount];
+        // 倒序入栈，先分配低地址的槽位
+        for (int i = 0; i < slab.slotCount; i++) {
+            slab.freeSlots[i] = slab.slotCount - 1 - i;
+        }
+        slab.freeCount = slab.slotCount;
+    }
+
+    private static int sizeClass(int length) {
+        if (length <= (1 << MIN_SHIFT)) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(length - 1) - MIN_SHIFT;
+    }
+}
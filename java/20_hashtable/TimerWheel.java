@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Modified: adapted from Caffeine's com.github.benmanes.caffeine.cache.TimerWheel
+ * (https://github.com/ben-manes/caffeine) for the caches in this directory.
+ */
+import java.util.function.Consumer;
+
+/**
+ * @Description:分层时间轮，用于缓存元素的过期
+ * <p>
+ * 逐个扫描所有元素找出过期的元素是O(n)的。时间轮把元素按过期时间挂到不同的桶里：
+ * 第0层每个桶跨度约1.07秒，共64个桶；第1层每个桶约1.14分钟；依次类推，最高层容纳约13天以上的过期时间。
+ * 时间推进时只处理走过的桶，桶里还没到期的元素重新挂到更低层的桶，
+ * 所以添加、删除都是O(1)，过期处理的均摊代价也是O(1)。
+ * <p>
+ * 桶是带哨兵的双向循环链表，链表指针直接放在元素节点里（Node），不额外分配对象。
+ * 过期时间以纳秒表示，只比较差值，允许System.nanoTime()溢出。非线程安全。
+ * <p>
+ * 层数、桶数和跨度以及推进、重新挂桶的做法移植自Caffeine的TimerWheel（Apache License 2.0，见文件头）。
+ * @Date: Create in 2026-10-17
+ */
+public class TimerWheel {
+
+    /**
+     * 每层的桶数
+     */
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+
+    /**
+     * 每层一个桶的时间跨度（纳秒），都是2的幂，方便用移位计算桶下标
+     */
+    private static final long[] SPANS = {
+            1L << 30, // 1.07s
+            1L << 36, // 1.14m
+            1L << 42, // 1.22h
+            1L << 46, // 19.5h
+            1L << 50, // 13.0d
+            1L << 50, // 13.0d
+    };
+
+    private static final int[] SHIFT = {30, 36, 42, 46, 50};
+
+    /**
+     * 可以挂到时间轮上的节点
+     */
+    public static class Node {
+
+        /**
+         * 过期时间（纳秒）
+         */
+        long expireAt;
+
+        Node prevInWheel;
+
+        Node nextInWheel;
+
+        /**
+         * 是否已经挂在时间轮上
+         */
+        boolean isScheduled() {
+            return nextInWheel != null;
+        }
+    }
+
+    private final Node[][] wheel;
+
+    /**
+     * 时间轮当前走到的时间
+     */
+    private long nanos;
+
+    public TimerWheel(long nanos) {
+        this.nanos = nanos;
+        wheel = new Node[BUCKETS.length][];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Node[BUCKETS[i]];
+            for (int j = 0; j < wheel[i].length; j++) {
+                Node sentinel = new Node();
+                sentinel.prevInWheel = sentinel;
+                sentinel.nextInWheel = sentinel;
+                wheel[i][j] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * 按节点的expireAt挂到对应的桶里，已挂上的节点先摘下再重新挂
+     *
+     * @param node
+     */
+    public void schedule(Node node) {
+        if (node.isScheduled()) {
+            unlink(node);
+        }
+        link(findBucket(node.expireAt), node);
+    }
+
+    /**
+     * 从时间轮上摘下节点，未挂上时什么也不做
+     *
+     * @param node
+     */
+    public void deschedule(Node node) {
+        if (node.isScheduled()) {
+            unlink(node);
+        }
+    }
+
+    /**
+     * 把时间轮推进到currentNanos，对到期的节点回调expired，回调时节点已经从时间轮上摘下
+     *
+     * @param currentNanos
+     * @param expired
+     */
+    public void advance(long currentNanos, Consumer<Node> expired) {
+        long previous = nanos;
+        nanos = currentNanos;
+        for (int i = 0; i < SHIFT.length; i++) {
+            long previousTicks = previous >>> SHIFT[i];
+            long currentTicks = currentNanos >>> SHIFT[i];
+            // 这一层的指针没有走动，更高层的也不会走动
+            if (currentTicks - previousTicks <= 0L) {
+                break;
+            }
+            expire(i, previousTicks, currentTicks - previousTicks, expired);
+        }
+    }
+
+    /**
+     * 处理第index层从previousTicks开始走过的桶，最多处理一整圈
+     */
+    private void expire(int index, long previousTicks, long delta, Consumer<Node> expired) {
+        Node[] timerWheel = wheel[index];
+        int mask = timerWheel.length - 1;
+        int steps = (int) Math.min(1 + delta, timerWheel.length);
+        int start = (int) (previousTicks & mask);
+        int end = start + steps;
+        for (int i = start; i < end; i++) {
+            Node sentinel = timerWheel[i & mask];
+            // 先把整个桶摘下来，重新挂的节点不会又落回正在遍历的链表
+            Node node = sentinel.nextInWheel;
+            sentinel.prevInWheel = sentinel;
+            sentinel.nextInWheel = sentinel;
+            while (node != sentinel) {
+                Node next = node.nextInWheel;
+                node.prevInWheel = null;
+                node.nextInWheel = null;
+                if (node.expireAt - nanos > 0) {
+                    link(findBucket(node.expireAt), node);
+                } else {
+                    expired.accept(node);
+                }
+                node = next;
+            }
+        }
+    }
+
+    /**
+     * 根据距离现在的时长选择层，再根据绝对时间选择桶
+     */
+    private Node findBucket(long time) {
+        long duration = time - nanos;
+        if (duration < 0) {
+            // 已经过期的节点放进当前桶，时间轮下一次走动时就会处理
+            time = nanos;
+            duration = 0;
+        }
+        int length = wheel.length - 1;
+        for (int i = 0; i < length; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = time >>> SHIFT[i];
+                int index = (int) (ticks & (wheel[i].length - 1));
+                return wheel[i][index];
+            }
+        }
+        return wheel[length][0];
+    }
+
+    /**
+     * 插到桶的尾部
+     */
+    private static void link(Node sentinel, Node node) {
+        node.prevInWheel = sentinel.prevInWheel;
+        node.nextInWheel = sentinel;
+        sentinel.prevInWheel.nextInWheel = node;
+        sentinel.prevInWheel = node;
+    }
+
+    private static void unlink(Node node) {
+        node.prevInWheel.nextInWheel = node.nextInWheel;
+        node.nextInWheel.prevInWheel = node.prevInWheel;
+        node.prevInWheel = null;
+        node.nextInWheel = null;
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * @Description:基于Count-Min Sketch的TinyLFU准入策略
+ * <p>
+ * 用一个4行的Count-Min Sketch近似统计每个key的访问频率，候选元素的频率高于淘汰者时才准入，
+ * 只被访问过一次的元素（比如顺序扫描带来的数据）无法挤掉热点数据。
+ * 1. 每个计数器只占4位，16个计数器打包在一个long里，计数上限为15；
+ * 2. 累计记录次数达到sampleSize后所有计数器减半（老化），让频率统计跟上访问模式的变化。
+ * @Date: Create in 2026-10-17
+ */
+public class TinyLfuAdmission<K> implements AdmissionPolicy<K> {
+
+    /**
+     * 每行使用的散列种子
+     */
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    /**
+     * 计数器上限
+     */
+    private static final int MAX_COUNT = 15;
+
+    /**
+     * 减半时保留每个4位计数器的低3位
+     */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+
+    /**
+     * 计数器总数减一，计数器总数为2的幂
+     */
+    private final int counterMask;
+
+    /**
+     * 老化周期
+     */
+    private final int sampleSize;
+
+    /**
+     * 本周期内的记录次数
+     */
+    private int size;
+
+    /**
+     * @param capacity 缓存容量，决定计数器数量和老化周期
+     */
+    public TinyLfuAdmission(int capacity) {
+        int counters = Integer.highestOneBit(Math.max(capacity, 16) - 1) << 1;
+        // 每个缓存容量约配4个计数器
+        counters = Math.min(counters << 2, 1 << 30);
+        table = new long[counters >>> 4];
+        counterMask = counters - 1;
+        sampleSize = (int) Math.min(10L * Math.max(capacity, 16), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void record(K key) {
+        int h = spread(key);
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            added |= increment(indexOf(h, i));
+        }
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    @Override
+    public boolean admit(K candidate, K victim) {
+        return frequency(candidate) > frequency(victim);
+    }
+
+    /**
+     * 估算key的访问频率，取各行计数器的最小值
+     *
+     * @param key
+     * @return
+     */
+    public int frequency(K key) {
+        int h = spread(key);
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            frequency = Math.min(frequency, count(indexOf(h, i)));
+        }
+        return frequency;
+    }
+
+    private int count(int counter) {
+        return (int) (table[counter >>> 4] >>> ((counter & 15) << 2)) & MAX_COUNT;
+    }
+
+    /**
+     * 计数器加一，已达上限时不变
+     *
+     * @return 是否真的增加了
+     */
+    private boolean increment(int counter) {
+        int index = counter >>> 4;
+        int shift = (counter & 15) << 2;
+        if (((table[index] >>> shift) & MAX_COUNT) == MAX_COUNT) {
+            return false;
+        }
+        table[index] += 1L << shift;
+        return true;
+    }
+
+    /**
+     * 老化：所有计数器减半
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size >>>= 1;
+    }
+
+    /**
+     * 第i行中key对应的计数器下标
+     */
+    private int indexOf(int h, int i) {
+        long hash = (h + SEEDS[i]) * SEEDS[i];
+        hash += hash >>> 32;
+        return (int) hash & counterMask;
+    }
+
+    private static int spread(Object key) {
+        int h = key == null ? 0 : key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
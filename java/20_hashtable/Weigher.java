@@ -0,0 +1,18 @@
+/**
+ * @Description:计算缓存元素的权重
+ * <p>
+ * LRUBaseHashTable默认按元素个数限制容量，每个元素的权重都是1。
+ * 缓存的value大小差别很大时（几个字节到几MB），可以让权重表示value占用的字节数，容量就变成了总字节数的上限。
+ * @Date: Create in 2026-10-17
+ */
+public interface Weigher<K, V> {
+
+    /**
+     * 计算元素的权重，元素写入时调用一次，之后不会重新计算
+     *
+     * @param key
+     * @param value
+     * @return 非负数
+     */
+    int weigh(K key, V value);
+}